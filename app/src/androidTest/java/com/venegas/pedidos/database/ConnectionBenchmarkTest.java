@@ -0,0 +1,108 @@
+package com.venegas.pedidos.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Latencia por llamada de DatabaseHelper con 10k pedidos: conexión de
+ * larga vida contra cerrar la base después de cada llamada, como hacía
+ * antes cada método (obligaba a reabrir el archivo y releer el esquema en
+ * cada consulta).
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConnectionBenchmarkTest {
+
+    private static final String TAG     = "ConnectionBenchmark";
+    private static final String TEST_DB = "pedidos_test_connection.db";
+    private static final int    ROWS    = 10_000;
+    private static final int    CALLS   = 500;
+
+    private Context        context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DatabaseHelper(context, TEST_DB);
+        TestOrders.fill(helper, ROWS);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void longLivedConnectionIsFasterPerCall() {
+        // Calentar: primera apertura y caché de sentencias
+        measure(false);
+
+        long[] open   = measure(false);
+        long[] reopen = measure(true);
+
+        Log.i(TAG, String.format(Locale.US,
+                "%d pedidos, %d llamadas: abierta p50 %.3f ms p95 %.3f ms; "
+                        + "cerrando cada vez p50 %.3f ms p95 %.3f ms",
+                ROWS, CALLS, ms(percentile(open, 50)), ms(percentile(open, 95)),
+                ms(percentile(reopen, 50)), ms(percentile(reopen, 95))));
+
+        assertTrue("la conexión abierta debería ser más rápida",
+                percentile(open, 50) < percentile(reopen, 50));
+    }
+
+    /**
+     * Mezcla de llamadas de la app (lectura por ID, conteo, cambio de estado).
+     * @return duración de cada llamada en ns
+     */
+    private long[] measure(boolean closeAfterEachCall) {
+        Random random = new Random(3);
+        long[] samples = new long[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            long id = 1 + random.nextInt(ROWS);
+            long start = System.nanoTime();
+            switch (i % 3) {
+                case 0:
+                    assertNotNull(helper.getOrderById(id));
+                    break;
+                case 1:
+                    helper.countByStatus(Order.STATUS_PENDING);
+                    break;
+                default:
+                    helper.updateOrderStatus(id, Order.STATUS_SYNCED, null, "S" + id);
+                    break;
+            }
+            if (closeAfterEachCall) helper.close();
+            samples[i] = System.nanoTime() - start;
+        }
+        return samples;
+    }
+
+    private static long percentile(long[] samples, int p) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)];
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+}
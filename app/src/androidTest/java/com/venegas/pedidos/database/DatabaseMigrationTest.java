@@ -0,0 +1,238 @@
+package com.venegas.pedidos.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Migración v1 → DB_VERSION sobre una base con 100k pedidos creada con el
+ * esquema original: no se pierde ninguna fila y cada versión deja sus
+ * columnas, índices, contadores y FTS.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationTest {
+
+    private static final String TAG     = "DatabaseMigrationTest";
+    private static final String TEST_DB = "pedidos_test_migration.db";
+    private static final int    ROWS    = 100_000;
+
+    // Esquema de la v1 tal como se publicó; no debe seguir los cambios de DatabaseHelper
+    private static final String V1_ORDERS = "CREATE TABLE orders ("
+            + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+            + "client_name TEXT NOT NULL, "
+            + "client_phone TEXT, "
+            + "client_address TEXT, "
+            + "order_detail TEXT NOT NULL, "
+            + "payment_type TEXT, "
+            + "photo_path TEXT, "
+            + "latitude REAL, "
+            + "longitude REAL, "
+            + "status TEXT DEFAULT 'PENDING', "
+            + "error_message TEXT, "
+            + "created_at TEXT, "
+            + "server_id TEXT"
+            + ");";
+
+    private Context        context;
+    private DatabaseHelper helper;
+    private int            pending, synced, error;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        createV1Database();
+    }
+
+    @After
+    public void tearDown() {
+        if (helper != null) helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void upgradesV1WithoutLosingRows() {
+        SQLiteDatabase v1 = openRaw();
+        long pendingScanMs = timePendingQuery(v1);
+        v1.close();
+
+        long start = SystemClock.elapsedRealtime();
+        helper = new DatabaseHelper(context, TEST_DB);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        long upgradeMs = SystemClock.elapsedRealtime() - start;
+
+        assertEquals(10, db.getVersion());
+        assertEquals(ROWS, count(db, "SELECT COUNT(*) FROM orders"));
+
+        // Columnas agregadas por cada versión
+        Set<String> columns = columns(db, DatabaseHelper.TABLE_ORDERS);
+        for (String col : new String[]{
+                DatabaseHelper.COL_PHOTO_COMPRESSED, DatabaseHelper.COL_ERROR_TYPE,
+                DatabaseHelper.COL_ATTEMPT_COUNT, DatabaseHelper.COL_NEXT_RETRY_AT,
+                DatabaseHelper.COL_IDEMPOTENCY_KEY, DatabaseHelper.COL_SERVER_STATUS,
+                DatabaseHelper.COL_SERVER_UPDATED_AT}) {
+            assertTrue("falta la columna " + col, columns.contains(col));
+        }
+        assertTrue(columns(db, DatabaseHelper.TABLE_PHOTO_UPLOADS).contains(DatabaseHelper.COL_UP_OFFSET));
+
+        // Índices
+        Set<String> indexes = names(db, "index");
+        for (String idx : new String[]{
+                DatabaseHelper.IDX_STATUS, DatabaseHelper.IDX_CREATED_AT, DatabaseHelper.IDX_PENDING,
+                DatabaseHelper.IDX_RETRY, DatabaseHelper.IDX_IDEMPOTENCY,
+                DatabaseHelper.IDX_STATUS_CREATED, DatabaseHelper.IDX_PAYMENT_CREATED,
+                DatabaseHelper.IDX_SERVER_ID}) {
+            assertTrue("falta el índice " + idx, indexes.contains(idx));
+        }
+
+        // v3: contadores cargados desde las filas existentes
+        DatabaseHelper.StatusCounts counts = helper.getStatusCounts();
+        assertEquals(pending, counts.pending);
+        assertEquals(synced,  counts.synced);
+        assertEquals(error,   counts.error);
+
+        // v6: los errores viejos quedan sin reintento programado
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM orders WHERE next_retry_at IS NOT NULL"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM orders WHERE attempt_count <> 0"));
+
+        // v7: una clave de idempotencia distinta por pedido
+        assertEquals(ROWS, count(db, "SELECT COUNT(DISTINCT idempotency_key) FROM orders"));
+
+        // v8: el índice FTS incluye los pedidos existentes
+        List<Order> found = helper.searchOrders("Cliente 77777", null, 10);
+        assertFalse(found.isEmpty());
+        assertEquals("Cliente 77777", found.get(0).getClientName());
+
+        // v9: fechas ISO normalizadas; las que SQLite no entiende quedan igual
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM orders WHERE created_at LIKE '%T%'"));
+        assertEquals(ROWS / 1000, count(db, "SELECT COUNT(*) FROM orders WHERE created_at = 'ayer'"));
+
+        // Los pendientes se leen por índice y siguen completos
+        assertTrue(queryPlan(db, "SELECT * FROM orders WHERE status='PENDING' ORDER BY id")
+                .contains("INDEX"));
+        long pendingIndexMs = timePendingQuery(db);
+        assertEquals(pending, helper.getPendingOrders().size());
+
+        // La base migrada acepta pedidos nuevos y los cuenta
+        long id = helper.insertOrder(new Order("Nuevo", "0999", "Calle 1", "1 caja",
+                Order.PAYMENT_CASH, null, -0.18, -78.47, "2024-06-01 10:00:00"));
+        assertTrue(id > ROWS);
+        assertEquals(pending + 1, helper.getStatusCounts().pending);
+
+        Log.i(TAG, "migración v1→10 de " + ROWS + " filas: " + upgradeMs + " ms; "
+                + "pendientes v1 " + pendingScanMs + " ms, v10 " + pendingIndexMs + " ms");
+    }
+
+    /** Base v1 con ROWS pedidos: 10% pendientes, 10% con error, el resto sincronizados. */
+    private void createV1Database() {
+        SQLiteDatabase db = openRaw();
+        db.execSQL(V1_ORDERS);
+        SQLiteStatement insert = db.compileStatement("INSERT INTO orders (client_name, client_phone,"
+                + " client_address, order_detail, payment_type, photo_path, latitude, longitude,"
+                + " status, error_message, created_at, server_id) VALUES (?,?,?,?,?,?,?,?,?,?,?,?)");
+        db.beginTransaction();
+        try {
+            for (int i = 1; i <= ROWS; i++) {
+                String status = i % 10 == 0 ? Order.STATUS_PENDING
+                        : i % 10 == 1 ? Order.STATUS_ERROR : Order.STATUS_SYNCED;
+                insert.clearBindings();
+                insert.bindString(1, "Cliente " + i);
+                insert.bindString(2, "0999" + i);
+                insert.bindString(3, "Av. Amazonas " + i);
+                insert.bindString(4, "2 cajas de producto " + (i % 50));
+                insert.bindString(5, i % 3 == 0 ? Order.PAYMENT_CASH : "transferencia");
+                insert.bindString(6, "/data/fotos/pedido_" + i + ".jpg");
+                insert.bindDouble(7, -0.18 + i / 1e6);
+                insert.bindDouble(8, -78.47);
+                insert.bindString(9, status);
+                if (Order.STATUS_ERROR.equals(status)) insert.bindString(10, "Sin conexión");
+                insert.bindString(11, createdAt(i));
+                if (Order.STATUS_SYNCED.equals(status)) insert.bindString(12, "S" + i);
+                insert.executeInsert();
+
+                if (Order.STATUS_PENDING.equals(status))    pending++;
+                else if (Order.STATUS_ERROR.equals(status)) error++;
+                else                                         synced++;
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        insert.close();
+        db.setVersion(1);
+        db.close();
+    }
+
+    /** Mezcla los formatos que guardaron versiones viejas de la app. */
+    private static String createdAt(int i) {
+        if (i % 1000 == 0) return "ayer";
+        String day = String.format(Locale.US, "2024-%02d-%02d", 1 + i % 12, 1 + i % 28);
+        return i % 2 == 0 ? day + "T10:30:00" : day + " 10:30:00";
+    }
+
+    private SQLiteDatabase openRaw() {
+        return SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(TEST_DB), null);
+    }
+
+    private static long timePendingQuery(SQLiteDatabase db) {
+        long start = SystemClock.elapsedRealtime();
+        Cursor c = db.rawQuery("SELECT * FROM orders WHERE status='PENDING' ORDER BY id", null);
+        while (c.moveToNext()) { /* recorrer */ }
+        c.close();
+        return SystemClock.elapsedRealtime() - start;
+    }
+
+    private static int count(SQLiteDatabase db, String sql) {
+        Cursor c = db.rawQuery(sql, null);
+        c.moveToFirst();
+        int n = c.getInt(0);
+        c.close();
+        return n;
+    }
+
+    private static Set<String> columns(SQLiteDatabase db, String table) {
+        Set<String> set = new HashSet<>();
+        Cursor c = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        while (c.moveToNext()) set.add(c.getString(c.getColumnIndexOrThrow("name")));
+        c.close();
+        return set;
+    }
+
+    private static Set<String> names(SQLiteDatabase db, String type) {
+        Set<String> set = new HashSet<>();
+        Cursor c = db.rawQuery("SELECT name FROM sqlite_master WHERE type = ?", new String[]{type});
+        while (c.moveToNext()) set.add(c.getString(0));
+        c.close();
+        return set;
+    }
+
+    private static String queryPlan(SQLiteDatabase db, String sql) {
+        StringBuilder plan = new StringBuilder();
+        Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+        while (c.moveToNext()) plan.append(c.getString(c.getColumnIndexOrThrow("detail"))).append('\n');
+        c.close();
+        return plan.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package com.venegas.pedidos.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exportación de 200k pedidos: el heap de Java no crece con la cantidad de
+ * filas. Un hilo muestrea el heap usado mientras se exporta; el pico tiene
+ * que quedar bajo un tope fijo, muy por debajo de lo que ocuparían 200k
+ * objetos Order en una lista.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ExportMemoryTest {
+
+    private static final String TAG     = "ExportMemoryTest";
+    private static final String TEST_DB = "pedidos_test_export.db";
+    private static final int    ROWS    = 200_000;
+
+    // Buffers del exportador y basura que el GC aún no recogió; una lista de
+    // 200k pedidos ocupa varias veces esto
+    private static final long MAX_HEAP_GROWTH = 24L * 1024 * 1024;
+
+    private Context        context;
+    private DatabaseHelper helper;
+    private File           out;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DatabaseHelper(context, TEST_DB);
+        TestOrders.fill(helper, ROWS);
+        out = new File(context.getCacheDir(), "export_test");
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+        out.delete();
+    }
+
+    @Test
+    public void csvExportKeepsHeapFlat() throws Exception {
+        long growth = exportWithSampling(OrderExporter.Format.CSV, false);
+        assertEquals(ROWS + 1, countLines(out, false));   // encabezado + filas
+        assertTrue("el heap creció " + growth / 1024 + " KB", growth < MAX_HEAP_GROWTH);
+    }
+
+    @Test
+    public void ndjsonZipExportKeepsHeapFlat() throws Exception {
+        long growth = exportWithSampling(OrderExporter.Format.NDJSON, true);
+        assertEquals(ROWS, countLines(out, true));
+        assertTrue("el heap creció " + growth / 1024 + " KB", growth < MAX_HEAP_GROWTH);
+    }
+
+    /** @return crecimiento máximo del heap usado durante la exportación. */
+    private long exportWithSampling(OrderExporter.Format format, boolean zip) throws Exception {
+        OrderExporter exporter = new OrderExporter(helper);
+        long baseline = usedHeap();
+        AtomicLong    peak = new AtomicLong(baseline);
+        AtomicBoolean done = new AtomicBoolean(false);
+
+        Thread sampler = new Thread(() -> {
+            while (!done.get()) {
+                peak.accumulateAndGet(currentHeap(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+
+        long start = System.nanoTime();
+        int rows;
+        try {
+            rows = zip ? exporter.exportZip(format, out) : exporter.export(format, out);
+        } finally {
+            done.set(true);
+            sampler.join();
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(ROWS, rows);
+        long growth = peak.get() - baseline;
+        Log.i(TAG, String.format(Locale.US,
+                "%s%s de %d pedidos: %d ms, %d KB en disco, heap +%d KB (máximo de la app %d MB)",
+                format, zip ? " (zip)" : "", ROWS, elapsedMs, out.length() / 1024,
+                growth / 1024, Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+        return growth;
+    }
+
+    private static int countLines(File file, boolean zip) throws Exception {
+        try (FileInputStream in = new FileInputStream(file)) {
+            if (!zip) return countLines(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            ZipInputStream zin = new ZipInputStream(in);
+            ZipEntry entry = zin.getNextEntry();
+            assertTrue(entry.getName().startsWith("pedidos."));
+            return countLines(new BufferedReader(new InputStreamReader(zin, StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static int countLines(BufferedReader reader) throws Exception {
+        int lines = 0;
+        while (reader.readLine() != null) lines++;
+        return lines;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+        return currentHeap();
+    }
+
+    private static long currentHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
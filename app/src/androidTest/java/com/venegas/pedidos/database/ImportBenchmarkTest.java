@@ -0,0 +1,131 @@
+package com.venegas.pedidos.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Importación masiva: OrderImporter (una sentencia compilada, lotes de
+ * BATCH_SIZE filas por transacción) contra llamar insertOrder() por cada
+ * pedido, que confirma una transacción por fila.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportBenchmarkTest {
+
+    private static final String TAG      = "ImportBenchmark";
+    private static final String BATCH_DB = "pedidos_test_import.db";
+    private static final String SINGLE_DB = "pedidos_test_insert.db";
+    private static final int    ROWS     = 10_000;
+
+    private Context        context;
+    private DatabaseHelper batchHelper;
+    private DatabaseHelper singleHelper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(BATCH_DB);
+        context.deleteDatabase(SINGLE_DB);
+        batchHelper  = new DatabaseHelper(context, BATCH_DB);
+        singleHelper = new DatabaseHelper(context, SINGLE_DB);
+    }
+
+    @After
+    public void tearDown() {
+        batchHelper.close();
+        singleHelper.close();
+        context.deleteDatabase(BATCH_DB);
+        context.deleteDatabase(SINGLE_DB);
+    }
+
+    @Test
+    public void batchedImportIsFasterThanInsertOrder() throws Exception {
+        byte[] csv = csv(ROWS);
+        int[] batches = {0};
+
+        long start = System.nanoTime();
+        OrderImporter.Result result = new OrderImporter(batchHelper)
+                .importFrom(new ByteArrayInputStream(csv), processed -> batches[0]++);
+        long importNs = System.nanoTime() - start;
+
+        // Sin leer ningún archivo: solo el costo de insertar fila por fila
+        start = System.nanoTime();
+        for (int i = 1; i <= ROWS; i++) singleHelper.insertOrder(TestOrders.order(i));
+        long insertNs = System.nanoTime() - start;
+
+        Log.i(TAG, String.format(Locale.US,
+                "%d pedidos: OrderImporter %.0f ms (%.0f filas/s, CSV incluido); insertOrder %.0f ms (%.0f filas/s)",
+                ROWS, importNs / 1e6, ROWS / (importNs / 1e9), insertNs / 1e6, ROWS / (insertNs / 1e9)));
+
+        assertEquals(ROWS, result.imported);
+        assertEquals(0, result.invalid);
+        assertEquals(ROWS / OrderImporter.BATCH_SIZE + 1, batches[0]);
+        assertTrue(importNs < insertNs);
+    }
+
+    @Test
+    public void importedRowsAreCountedIndexedAndDeduplicated() throws Exception {
+        byte[] csv = csv(ROWS);
+        OrderImporter importer = new OrderImporter(batchHelper);
+
+        OrderImporter.Result first = importer.importFrom(new ByteArrayInputStream(csv), null);
+
+        // Solo SYNCED con server_id se respeta; pendientes y errores quedan por subir
+        int synced = ROWS * 8 / 10;
+        assertEquals(ROWS, first.imported);
+        assertEquals(ROWS - synced, first.pending);
+        DatabaseHelper.StatusCounts counts = batchHelper.getStatusCounts();
+        assertEquals(synced, counts.synced);
+        assertEquals(ROWS - synced, counts.pending);
+        assertFalse(batchHelper.searchOrders("Cliente 4321", null, 10).isEmpty());
+
+        // Mismo archivo otra vez: las claves de idempotencia ya existen
+        OrderImporter.Result again = importer.importFrom(new ByteArrayInputStream(csv), null);
+        assertEquals(0, again.imported);
+        assertEquals(ROWS, again.duplicates);
+        assertEquals(synced, batchHelper.getStatusCounts().synced);
+    }
+
+    /** CSV con encabezado y los pedidos 1..n de TestOrders. */
+    private static byte[] csv(int n) {
+        String[] columns = {
+                DatabaseHelper.COL_CLIENT_NAME, DatabaseHelper.COL_CLIENT_PHONE,
+                DatabaseHelper.COL_CLIENT_ADDRESS, DatabaseHelper.COL_ORDER_DETAIL,
+                DatabaseHelper.COL_PAYMENT_TYPE, DatabaseHelper.COL_LATITUDE,
+                DatabaseHelper.COL_LONGITUDE, DatabaseHelper.COL_STATUS,
+                DatabaseHelper.COL_CREATED_AT, DatabaseHelper.COL_SERVER_ID,
+                DatabaseHelper.COL_IDEMPOTENCY_KEY};
+        StringBuilder sb = new StringBuilder(String.join(",", columns)).append("\r\n");
+        for (int i = 1; i <= n; i++) {
+            Order o = TestOrders.order(i);
+            String[] values = {
+                    o.getClientName(), o.getClientPhone(), o.getClientAddress(), o.getOrderDetail(),
+                    o.getPaymentType(), String.valueOf(o.getLatitude()), String.valueOf(o.getLongitude()),
+                    o.getStatus(), o.getCreatedAt(), o.getServerId() != null ? o.getServerId() : "",
+                    "import-" + i};
+            for (int c = 0; c < values.length; c++) {
+                if (c > 0) sb.append(',');
+                sb.append('"').append(values[c].replace("\"", "\"\"")).append('"');
+            }
+            sb.append("\r\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+package com.venegas.pedidos.database;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Lista de pedidos con 50k filas: lo que cuesta tener la primera pantalla
+ * (primera página por keyset) contra cargar todo con getAllOrders(), en
+ * tiempo y en heap retenido. Es la parte de datos del tiempo hasta el primer
+ * frame de MainActivity; el resto (inflar 50 filas) no depende del total.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OrderPagingBenchmarkTest {
+
+    private static final String TAG       = "OrderPagingBenchmark";
+    private static final String TEST_DB   = "pedidos_test_paging.db";
+    private static final int    ROWS      = 50_000;
+    private static final int    PAGE_SIZE = 50;   // el de MainActivity
+
+    private Context        context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DatabaseHelper(context, TEST_DB);
+        TestOrders.fill(helper, ROWS);
+        helper.getOrdersPage(null, null, PAGE_SIZE);   // calentar
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void firstPageIsCheaperThanLoadingEverything() {
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        List<Order> page = helper.getOrdersPage(null, null, PAGE_SIZE);
+        long pageNs = System.nanoTime() - start;
+        long pageHeap = usedHeap() - heapBefore;
+        assertEquals(PAGE_SIZE, page.size());
+
+        OrderFilter pending = new OrderFilter();
+        pending.status = Order.STATUS_PENDING;
+        start = System.nanoTime();
+        assertEquals(PAGE_SIZE, helper.getOrdersPage(pending, null, PAGE_SIZE).size());
+        long filteredNs = System.nanoTime() - start;
+
+        heapBefore = usedHeap();
+        start = System.nanoTime();
+        List<Order> all = helper.getAllOrders();
+        long allNs = System.nanoTime() - start;
+        long allHeap = usedHeap() - heapBefore;
+        assertEquals(ROWS, all.size());
+
+        Log.i(TAG, String.format(Locale.US,
+                "%d pedidos: primera página %.1f ms / %d KB, filtrada %.1f ms; "
+                        + "getAllOrders %.1f ms / %d KB",
+                ROWS, pageNs / 1e6, pageHeap / 1024, filteredNs / 1e6, allNs / 1e6, allHeap / 1024));
+
+        assertTrue(pageNs * 10 < allNs);
+        assertTrue(pageHeap * 10 < allHeap);
+        // Mantener las listas vivas hasta después de medir el heap
+        assertEquals(page.get(0).getId(), all.get(0).getId());
+    }
+
+    @Test
+    public void walkingAllPagesVisitsEveryOrderOnceInOrder() {
+        Set<Long> seen = new HashSet<>();
+        Order last = null;
+        long slowestNs = 0;
+        while (true) {
+            long start = System.nanoTime();
+            List<Order> page = helper.getOrdersPage(null, last, PAGE_SIZE);
+            slowestNs = Math.max(slowestNs, System.nanoTime() - start);
+            for (Order o : page) {
+                assertTrue("repetido " + o.getId(), seen.add(o.getId()));
+                if (last != null) assertTrue(o.getCreatedAt().compareTo(last.getCreatedAt()) <= 0);
+                last = o;
+            }
+            if (page.size() < PAGE_SIZE) break;
+        }
+        assertEquals(ROWS, seen.size());
+        Log.i(TAG, String.format(Locale.US, "página más lenta al recorrer %d pedidos: %.1f ms",
+                ROWS, slowestNs / 1e6));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,134 @@
+package com.venegas.pedidos.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Búsqueda en 100k pedidos: índice FTS4 de searchOrders() contra el
+ * LIKE '%texto%' sobre las cuatro columnas que hacía falta sin él.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchBenchmarkTest {
+
+    private static final String TAG     = "SearchBenchmark";
+    private static final String TEST_DB = "pedidos_test_search.db";
+    private static final int    ROWS    = 100_000;
+    private static final int    LIMIT   = 100;   // SEARCH_LIMIT de MainActivity
+    private static final int    REPEAT  = 5;
+
+    // Nombre completo, teléfono, palabra suelta del detalle y uno sin resultados
+    private static final String[] QUERIES = {"Cliente 98765", "0900054321", "aceite", "Rosa Cliente 7", "xyzzy"};
+
+    private Context        context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DatabaseHelper(context, TEST_DB);
+        TestOrders.fill(helper, ROWS);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void ftsIsFasterThanLikeScan() {
+        long[] fts  = new long[QUERIES.length * REPEAT];
+        long[] like = new long[QUERIES.length * REPEAT];
+        int n = 0;
+        for (int r = 0; r < REPEAT; r++) {
+            for (String q : QUERIES) {
+                long start = System.nanoTime();
+                helper.searchOrders(q, null, LIMIT);
+                fts[n] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                likeSearch(q);
+                like[n] = System.nanoTime() - start;
+                n++;
+            }
+        }
+
+        Log.i(TAG, String.format(Locale.US, "%d pedidos: FTS p50 %.2f ms máx %.2f ms; LIKE p50 %.2f ms máx %.2f ms",
+                ROWS, median(fts) / 1e6, max(fts) / 1e6, median(like) / 1e6, max(like) / 1e6));
+        assertTrue(median(fts) < median(like));
+    }
+
+    @Test
+    public void findsByNamePhoneAndDetail() {
+        List<Order> byName = helper.searchOrders("Cliente 98765", null, LIMIT);
+        assertFalse(byName.isEmpty());
+        assertEquals(98765, byName.get(0).getId());
+
+        List<Order> byPhone = helper.searchOrders("0900054321", null, LIMIT);
+        assertEquals(1, byPhone.size());
+        assertEquals(54321, byPhone.get(0).getId());
+
+        // Sin tilde encuentra "atún" y "José"
+        List<Order> byDetail = helper.searchOrders("atun", null, LIMIT);
+        assertEquals(LIMIT, byDetail.size());
+        for (Order o : byDetail) assertTrue(o.getOrderDetail().endsWith("latas de atún"));
+        for (Order o : helper.searchOrders("jose", null, LIMIT)) {
+            assertTrue(o.getClientName().startsWith("José"));
+        }
+
+        // Combinado con el filtro por estado
+        OrderFilter pending = new OrderFilter();
+        pending.status = Order.STATUS_PENDING;
+        for (Order o : helper.searchOrders("aceite", pending, LIMIT)) {
+            assertEquals(Order.STATUS_PENDING, o.getStatus());
+        }
+
+        assertTrue(helper.searchOrders("xyzzy", null, LIMIT).isEmpty());
+    }
+
+    /** La búsqueda sin índice: recorre la tabla entera si hay menos de LIMIT coincidencias. */
+    private int likeSearch(String query) {
+        String pattern = "%" + query + "%";
+        Cursor c = helper.getReadableDatabase().rawQuery("SELECT * FROM orders"
+                        + " WHERE client_name LIKE ? OR client_phone LIKE ?"
+                        + " OR client_address LIKE ? OR order_detail LIKE ?"
+                        + " ORDER BY id DESC LIMIT " + LIMIT,
+                new String[]{pattern, pattern, pattern, pattern});
+        int count = 0;
+        while (c.moveToNext()) count++;
+        c.close();
+        return count;
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static long max(long[] samples) {
+        long max = 0;
+        for (long s : samples) max = Math.max(max, s);
+        return max;
+    }
+}
@@ -0,0 +1,65 @@
+package com.venegas.pedidos.database;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.venegas.pedidos.models.Order;
+
+import java.util.Locale;
+
+/**
+ * Pedidos de prueba para los tests instrumentados de la base.
+ * Los datos son deterministas: el pedido i siempre es el mismo.
+ */
+final class TestOrders {
+
+    private static final String[] NAMES  = {"Ana", "José", "Luis", "María", "Pedro", "Rosa", "Jorge", "Lucía"};
+    private static final String[] ITEMS  = {"cajas de agua", "fundas de arroz", "paquetes de azúcar",
+            "botellas de aceite", "latas de atún", "docenas de huevos"};
+    private static final String[] STREETS = {"Av. Amazonas", "Calle Sucre", "Av. 6 de Diciembre",
+            "Calle Bolívar", "Av. Colón"};
+
+    private TestOrders() {}
+
+    /** Pedido i: 80% sincronizados, 10% pendientes, 10% con error; un minuto entre cada uno. */
+    static Order order(int i) {
+        Order o = new Order(
+                NAMES[i % NAMES.length] + " Cliente " + i,
+                String.format(Locale.US, "09%08d", i),
+                STREETS[i % STREETS.length] + " " + (i % 900 + 100),
+                (i % 9 + 1) + " " + ITEMS[i % ITEMS.length],
+                i % 3 == 0 ? Order.PAYMENT_CASH : Order.PAYMENT_TRANSFER,
+                null, -0.18 + (i % 1000) / 1e5, -78.47,
+                createdAt(i));
+        if (i % 10 == 0) {
+            o.setStatus(Order.STATUS_PENDING);
+        } else if (i % 10 == 1) {
+            o.setStatus(Order.STATUS_ERROR);
+            o.setErrorMessage("Sin conexión");
+        } else {
+            o.setStatus(Order.STATUS_SYNCED);
+            o.setServerId("S" + i);
+        }
+        return o;
+    }
+
+    static String createdAt(int i) {
+        long minutes = i;
+        return String.format(Locale.US, "2024-%02d-%02d %02d:%02d:00",
+                1 + (int) (minutes / (28 * 24 * 60)) % 12,
+                1 + (int) (minutes / (24 * 60)) % 28,
+                (int) (minutes / 60) % 24,
+                (int) minutes % 60);
+    }
+
+    /** Inserta los pedidos 1..n en una sola transacción. */
+    static void fill(DatabaseHelper helper, int n) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            for (int i = 1; i <= n; i++) helper.insertOrder(order(i));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.venegas.pedidos.network;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.sync.OrderUploader;
+import com.venegas.pedidos.sync.SyncFailure;
+import com.venegas.pedidos.utils.SessionManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renovación del token ante un 401, contra MockWebServer: un corte de red
+ * durante la renovación no debe cerrar la sesión.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TokenAuthenticatorTest {
+
+    private SessionManager session;
+    private String         savedToken, savedName, savedUsername;
+    private MockWebServer  server;
+    private AuthServer     auth;
+    private String         token;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        session       = SessionManager.getInstance(context);
+        savedToken    = session.getToken();
+        savedName     = session.getUserName();
+        savedUsername = session.getUsername();
+
+        auth   = new AuthServer();
+        server = new MockWebServer();
+        server.setDispatcher(auth);
+        server.start();
+        RetrofitClient.setBaseUrl(server.url("/").toString());
+
+        // Token distinto por test: el autenticador recuerda los que ya fallaron
+        token = "viejo-" + UUID.randomUUID();
+        session.saveSession(token, "Vendedor de prueba", "prueba");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RetrofitClient.setBaseUrl(RetrofitClient.BASE_URL);
+        server.shutdown();
+        if (savedToken != null) session.saveSession(savedToken, savedName, savedUsername);
+        else                    session.clearSession();
+    }
+
+    @Test
+    public void networkDropDuringRefreshKeepsSession() {
+        auth.refresh = new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+
+        OrderUploader.Result result = new OrderUploader(null).upload(order());
+
+        assertFalse(result.success);
+        assertEquals(SyncFailure.NETWORK, result.errorType);
+        assertTrue(auth.refreshCalls.get() >= 1);
+        assertTrue(session.isLoggedIn());
+        assertEquals(token, session.getToken());
+    }
+
+    @Test
+    public void refreshedTokenRetriesRequest() {
+        String renewed = "nuevo-" + UUID.randomUUID();
+        auth.refresh = new MockResponse().setHeader("Content-Type", "application/json")
+                .setBody("{\"token\":\"" + renewed + "\"}");
+
+        OrderUploader.Result result = new OrderUploader(null).upload(order());
+
+        assertTrue(result.success);
+        assertEquals("S1", result.serverId);
+        assertEquals(renewed, session.getToken());
+        assertEquals(1, auth.refreshCalls.get());
+    }
+
+    @Test
+    public void rejectedRefreshIsAuthFailure() {
+        auth.refresh = new MockResponse().setResponseCode(401);
+
+        OrderUploader.Result result = new OrderUploader(null).upload(order());
+
+        assertEquals(SyncFailure.AUTH, result.errorType);
+    }
+
+    private static Order order() {
+        Order o = new Order("Cliente", "0999", "Calle 1", "2 cajas", Order.PAYMENT_CASH, null,
+                -0.18, -78.47, "2024-05-01 10:00:00");
+        o.setId(1);
+        return o;
+    }
+
+    /**
+     * Servidor mínimo: orders responde 401 salvo con el token renovado y
+     * auth/refresh responde lo que indique el test. Otras rutas (una sync
+     * lanzada por el cambio de sesión) reciben 503.
+     */
+    private static class AuthServer extends Dispatcher {
+        volatile MockResponse refresh;
+        volatile String       renewedBearer;
+        final AtomicInteger   refreshCalls = new AtomicInteger();
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            if ("/auth/refresh".equals(path)) {
+                refreshCalls.incrementAndGet();
+                String body = refresh.getBody() != null ? refresh.getBody().clone().readUtf8() : "";
+                int start = body.indexOf("\"token\":\"");
+                if (start >= 0) {
+                    start += 9;
+                    renewedBearer = "Bearer " + body.substring(start, body.indexOf('"', start));
+                }
+                return refresh;
+            }
+            if ("/orders".equals(path)) {
+                if (renewedBearer != null && renewedBearer.equals(request.getHeader("Authorization"))) {
+                    return new MockResponse().setHeader("Content-Type", "application/json")
+                            .setBody("{\"serverId\":\"S1\"}");
+                }
+                return new MockResponse().setResponseCode(401);
+            }
+            return new MockResponse().setResponseCode(503);
+        }
+    }
+}
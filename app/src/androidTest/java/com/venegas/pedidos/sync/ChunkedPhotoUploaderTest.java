@@ -0,0 +1,245 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Subida reanudable contra un servidor de uploads/ simulado en
+ * MockWebServer que corta la conexión a mitad de algunos fragmentos.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ChunkedPhotoUploaderTest {
+
+    private static final String TEST_DB    = "pedidos_test_chunked.db";
+    private static final int    FILE_SIZE  = 1024 * 1024;
+    private static final int    CHUNK_SIZE = 64 * 1024;
+    private static final long   ORDER_ID   = 1;
+
+    private Context        context;
+    private DatabaseHelper db;
+    private MockWebServer  server;
+    private UploadServer   uploads;
+    private File           photo;
+    private byte[]         photoBytes;
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        db = new DatabaseHelper(context, TEST_DB);
+
+        photoBytes = new byte[FILE_SIZE];
+        new Random(1).nextBytes(photoBytes);
+        photo = new File(context.getCacheDir(), "chunked_test.jpg");
+        try (FileOutputStream out = new FileOutputStream(photo)) {
+            out.write(photoBytes);
+        }
+
+        uploads = new UploadServer();
+        server  = new MockWebServer();
+        server.setDispatcher(uploads);
+        server.start();
+        RetrofitClient.setBaseUrl(server.url("/").toString());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RetrofitClient.setBaseUrl(RetrofitClient.BASE_URL);
+        server.shutdown();
+        db.close();
+        context.deleteDatabase(TEST_DB);
+        photo.delete();
+    }
+
+    @Test
+    public void uploadsWholeFileWithoutCuts() throws Exception {
+        String uploadId = new ChunkedPhotoUploader(db, CHUNK_SIZE).upload(ORDER_ID, photo);
+
+        assertEquals(UploadServer.UPLOAD_ID, uploadId);
+        assertArrayEquals(photoBytes, uploads.assembled());
+        assertEquals(FILE_SIZE, uploads.chunkBytes);
+        assertEquals(FILE_SIZE / CHUNK_SIZE, uploads.chunkRequests);
+        assertEquals(FILE_SIZE, db.getPhotoUpload(ORDER_ID).confirmedOffset);
+    }
+
+    @Test
+    public void resumesFromConfirmedOffsetAfterCuts() throws Exception {
+        // Se corta a mitad del fragmento 6 y del 11
+        uploads.killChunks(6, 11);
+
+        String uploadId = null;
+        int attempts = 0;
+        while (uploadId == null) {
+            assertTrue("demasiados intentos", ++attempts <= 5);
+            try {
+                // Instancia nueva por intento: el progreso sale de SQLite, como en un reintento del worker
+                uploadId = new ChunkedPhotoUploader(db, CHUNK_SIZE).upload(ORDER_ID, photo);
+            } catch (IOException e) {
+                DatabaseHelper.PhotoUpload saved = db.getPhotoUpload(ORDER_ID);
+                assertNotNull(saved);
+                assertEquals(0, saved.confirmedOffset % CHUNK_SIZE);
+                assertTrue(saved.confirmedOffset < FILE_SIZE);
+            }
+        }
+
+        assertEquals(UploadServer.UPLOAD_ID, uploadId);
+        assertArrayEquals(photoBytes, uploads.assembled());
+        // Una sola sesión: los reintentos continúan, no empiezan de cero
+        assertEquals(1, uploads.sessionsStarted);
+        assertEquals(CHUNK_SIZE, uploads.discardedBytes);   // dos mitades descartadas
+        // Lo único repetido son las mitades de los dos fragmentos cortados
+        long sent = uploads.chunkBytes + uploads.discardedBytes;
+        assertTrue("bytes enviados: " + sent, sent <= FILE_SIZE + 2 * CHUNK_SIZE);
+        assertEquals(FILE_SIZE, uploads.chunkBytes);
+    }
+
+    @Test
+    public void restartsWhenServerSessionExpired() throws Exception {
+        DatabaseHelper.PhotoUpload stale = new DatabaseHelper.PhotoUpload();
+        stale.orderId         = ORDER_ID;
+        stale.uploadId        = "vencida";
+        stale.filePath        = photo.getAbsolutePath();
+        stale.fileSize        = FILE_SIZE;
+        stale.confirmedOffset = FILE_SIZE / 2;
+        db.savePhotoUpload(stale);
+
+        String uploadId = new ChunkedPhotoUploader(db, CHUNK_SIZE).upload(ORDER_ID, photo);
+
+        assertEquals(UploadServer.UPLOAD_ID, uploadId);
+        assertArrayEquals(photoBytes, uploads.assembled());
+        assertEquals(1, uploads.sessionsStarted);
+    }
+
+    @Test
+    public void changedFileStartsNewSession() throws Exception {
+        DatabaseHelper.PhotoUpload other = new DatabaseHelper.PhotoUpload();
+        other.orderId         = ORDER_ID;
+        other.uploadId        = "otra_foto";
+        other.filePath        = photo.getAbsolutePath() + ".old";
+        other.fileSize        = FILE_SIZE;
+        other.confirmedOffset = FILE_SIZE / 2;
+        db.savePhotoUpload(other);
+
+        new ChunkedPhotoUploader(db, CHUNK_SIZE).upload(ORDER_ID, photo);
+
+        // No consultó la sesión vieja: empezó una nueva desde cero
+        assertEquals(0, uploads.statusRequests);
+        assertArrayEquals(photoBytes, uploads.assembled());
+        assertNull(uploads.lastUnknownSession);
+    }
+
+    /**
+     * Servidor de uploads/ mínimo: una sola sesión, acepta un fragmento solo
+     * si llega completo y en el offset esperado.
+     */
+    private static class UploadServer extends Dispatcher {
+
+        static final String UPLOAD_ID = "u1";
+        private static final Pattern RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private final Set<Integer> killAt = new HashSet<>();
+        private volatile boolean   killNext;
+
+        int    sessionsStarted;
+        int    statusRequests;
+        int    chunkRequests;     // fragmentos recibidos (completos o no)
+        long   chunkBytes;        // bytes aceptados
+        long   discardedBytes;    // bytes de fragmentos cortados
+        String lastUnknownSession;
+
+        void killChunks(Integer... numbers) {
+            killAt.addAll(Arrays.asList(numbers));
+            killNext = killAt.contains(1);
+        }
+
+        synchronized byte[] assembled() {
+            return received.toByteArray();
+        }
+
+        /** Se consulta antes de leer el cuerpo: decide si esta petición se corta. */
+        @Override
+        public MockResponse peek() {
+            MockResponse response = new MockResponse();
+            if (killNext) response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_REQUEST_BODY);
+            return response;
+        }
+
+        @Override
+        public synchronized MockResponse dispatch(RecordedRequest request) {
+            String path = request.getPath();
+            String method = request.getMethod();
+
+            if ("POST".equals(method) && "/uploads".equals(path)) {
+                sessionsStarted++;
+                received.reset();
+                return session(0);
+            }
+            if (!("/uploads/" + UPLOAD_ID).equals(path)) {
+                lastUnknownSession = path;
+                return new MockResponse().setResponseCode(404);
+            }
+            if ("GET".equals(method)) {
+                statusRequests++;
+                return session(received.size());
+            }
+
+            // PUT de un fragmento
+            chunkRequests++;
+            killNext = killAt.contains(chunkRequests + 1);
+            Matcher m = RANGE.matcher(request.getHeader("Content-Range"));
+            assertTrue(m.matches());
+            long start    = Long.parseLong(m.group(1));
+            long expected = Long.parseLong(m.group(2)) - start + 1;
+            byte[] body   = request.getBody().readByteArray();
+            if (body.length < expected) {
+                // Cortado a mitad: el servidor descarta lo parcial
+                discardedBytes += body.length;
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START);
+            }
+            assertEquals(received.size(), start);
+            received.write(body, 0, body.length);
+            chunkBytes += body.length;
+            return session(received.size());
+        }
+
+        private static MockResponse session(long offset) {
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody("{\"uploadId\":\"" + UPLOAD_ID + "\",\"offset\":" + offset + "}");
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pull incremental de orders/changes contra MockWebServer: avance del
+ * cursor, corte cuando el servidor no avanza y cambios repetidos.
+ */
+@RunWith(AndroidJUnit4.class)
+public class OrderPullerTest {
+
+    private static final String TEST_DB = "pedidos_test_puller.db";
+
+    private Context         context;
+    private DatabaseHelper  db;
+    private SyncSettings    settings;
+    private String          savedCursor;
+    private ExecutorService diskIO;
+    private MockWebServer   server;
+    private OrderPuller     puller;
+
+    @Before
+    public void setUp() throws Exception {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        db = new DatabaseHelper(context, TEST_DB);
+
+        // El cursor vive en las preferencias reales: se guarda y se repone al final
+        settings    = new SyncSettings(context);
+        savedCursor = settings.getPullCursor();
+        settings.setPullCursor(null);
+
+        diskIO = Executors.newSingleThreadExecutor();
+        server = new MockWebServer();
+        server.start();
+        RetrofitClient.setBaseUrl(server.url("/").toString());
+        puller = new OrderPuller(db, settings, diskIO);
+
+        insertSynced("Ana", "S1");
+        insertSynced("Luis", "S2");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        settings.setPullCursor(savedCursor);
+        RetrofitClient.setBaseUrl(RetrofitClient.BASE_URL);
+        server.shutdown();
+        diskIO.shutdown();
+        db.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void advancesCursorPageByPage() throws Exception {
+        server.enqueue(page("c1", true,
+                change("S1", "entregado", "2024-06-01T10:00:00Z", null)));
+        server.enqueue(page("c2", false,
+                change("S2", "cancelado", "2024-06-01T11:00:00Z", null),
+                change("S1", null, "2024-06-01T12:00:00Z", "Ana María"),
+                change("S9", "entregado", "2024-06-01T12:00:00Z", null)));   // no es de este equipo
+
+        OrderPuller.Result result = puller.pull();
+
+        assertNull(result.errorMessage, result.errorType);
+        assertEquals(3, result.applied);
+        assertEquals("c2", settings.getPullCursor());
+
+        RecordedRequest first = server.takeRequest();
+        assertNull(first.getRequestUrl().queryParameter("since"));
+        assertEquals(String.valueOf(OrderPuller.PAGE_SIZE), first.getRequestUrl().queryParameter("limit"));
+        assertEquals("c1", server.takeRequest().getRequestUrl().queryParameter("since"));
+
+        Order ana = findByServerId("S1");
+        assertEquals("entregado", ana.getServerStatus());   // el cambio solo de nombre no lo borra
+        assertEquals("Ana María", ana.getClientName());
+        assertEquals("cancelado", findByServerId("S2").getServerStatus());
+
+        // La próxima corrida sigue desde c2
+        server.enqueue(page("c2", false));
+        puller.pull();
+        assertEquals("c2", server.takeRequest().getRequestUrl().queryParameter("since"));
+    }
+
+    @Test
+    public void stopsWhenServerDoesNotAdvanceCursor() throws Exception {
+        settings.setPullCursor("c5");
+        // hasMore = true pero el mismo cursor: sin el corte pediría lo mismo MAX_PAGES veces
+        server.enqueue(page("c5", true, change("S1", "entregado", "2024-06-01T10:00:00Z", null)));
+        server.enqueue(page(null, true));
+
+        OrderPuller.Result first = puller.pull();
+        OrderPuller.Result second = puller.pull();
+
+        assertNull(first.errorType);
+        assertNull(second.errorType);
+        assertEquals(2, server.getRequestCount());
+        assertEquals("c5", settings.getPullCursor());
+    }
+
+    @Test
+    public void replayedOrOlderChangesAreIgnored() throws Exception {
+        server.enqueue(page("c1", false, change("S1", "entregado", "2024-06-01T10:00:00Z", null)));
+        assertEquals(1, puller.pull().applied);
+
+        // Misma página repetida (el cursor no llegó a guardarse) y un cambio más viejo
+        server.enqueue(page("c1b", false,
+                change("S1", "entregado", "2024-06-01T10:00:00Z", null),
+                change("S1", "pendiente", "2024-06-01T09:00:00Z", "Nombre viejo")));
+        OrderPuller.Result replay = puller.pull();
+
+        assertNull(replay.errorType);
+        assertEquals(0, replay.applied);
+        Order ana = findByServerId("S1");
+        assertEquals("entregado", ana.getServerStatus());
+        assertEquals("Ana", ana.getClientName());
+    }
+
+    @Test
+    public void failureKeepsLastCommittedCursor() throws Exception {
+        server.enqueue(page("c1", true, change("S1", "entregado", "2024-06-01T10:00:00Z", null)));
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        OrderPuller.Result result = puller.pull();
+
+        assertEquals(SyncFailure.SERVER, result.errorType);
+        assertEquals(1, result.applied);
+        assertEquals("c1", settings.getPullCursor());
+
+        // Corte de red: tampoco avanza
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        assertEquals(SyncFailure.NETWORK, puller.pull().errorType);
+        assertEquals("c1", settings.getPullCursor());
+
+        // Respuesta 200 que no es JSON (proxy o arranque en frío)
+        server.enqueue(new MockResponse().setBody("<html>Service waking up</html>"));
+        assertEquals(SyncFailure.SERVER, puller.pull().errorType);
+        assertEquals("c1", settings.getPullCursor());
+    }
+
+    // ── Datos de prueba ──────────────────────────────────────────────────────
+
+    private void insertSynced(String name, String serverId) {
+        Order o = new Order(name, "0999", "Calle 1", "2 cajas", Order.PAYMENT_CASH, null,
+                -0.18, -78.47, "2024-05-01 10:00:00");
+        long id = db.insertOrder(o);
+        db.updateOrderStatus(id, Order.STATUS_SYNCED, null, serverId);
+    }
+
+    private Order findByServerId(String serverId) {
+        for (Order o : db.getAllOrders()) {
+            if (serverId.equals(o.getServerId())) return o;
+        }
+        throw new AssertionError("No existe " + serverId);
+    }
+
+    private static String change(String serverId, String status, String updatedAt, String clientName) {
+        StringBuilder sb = new StringBuilder("{\"serverId\":\"").append(serverId)
+                .append("\",\"updatedAt\":\"").append(updatedAt).append('"');
+        if (status != null)     sb.append(",\"status\":\"").append(status).append('"');
+        if (clientName != null) sb.append(",\"clientName\":\"").append(clientName).append('"');
+        return sb.append('}').toString();
+    }
+
+    private static MockResponse page(String nextCursor, boolean hasMore, String... changes) {
+        String body = "{\"changes\":[" + String.join(",", changes) + "],"
+                + "\"nextCursor\":" + (nextCursor != null ? "\"" + nextCursor + "\"" : "null") + ","
+                + "\"hasMore\":" + hasMore + "}";
+        return new MockResponse().setBody(body).setHeader("Content-Type", "application/json");
+    }
+}
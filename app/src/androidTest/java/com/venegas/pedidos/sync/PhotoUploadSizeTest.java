@@ -0,0 +1,170 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.ExifInterface;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.network.RetrofitClient;
+import com.venegas.pedidos.utils.PhotoCompressor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * PhotoCompressor sobre una foto del tamaño de la cámara: dimensiones y
+ * peso de la copia, orientación EXIF conservada, y bytes por pedido que
+ * OrderUploader manda al servidor con y sin la copia.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PhotoUploadSizeTest {
+
+    // Foto de cámara típica: 12 MP con calidad alta, tomada en vertical
+    private static final int CAMERA_WIDTH   = 4000;
+    private static final int CAMERA_HEIGHT  = 3000;
+    private static final int CAMERA_QUALITY = 95;
+
+    private File          photosDir;
+    private File          original;
+    private MockWebServer server;
+    private OrderUploader uploader;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        photosDir = new File(context.getCacheDir(), "photo_upload_test");
+        photosDir.mkdirs();
+        original = new File(photosDir, "pedido_1.jpg");
+        writeCameraPhoto(original);
+
+        server = new MockWebServer();
+        server.start();
+        RetrofitClient.setBaseUrl(server.url("/").toString());
+        uploader = new OrderUploader(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RetrofitClient.setBaseUrl(RetrofitClient.BASE_URL);
+        server.shutdown();
+        deleteRecursively(photosDir);
+    }
+
+    @Test
+    public void compressedCopyIsSmallerAndKeepsOrientation() throws Exception {
+        File compressed = PhotoCompressor.compress(original.getPath());
+
+        assertEquals(PhotoCompressor.compressedFileFor(original.getPath()), compressed);
+        assertFalse(new File(compressed.getPath() + ".tmp").exists());
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(compressed.getAbsolutePath(), bounds);
+        assertEquals(PhotoCompressor.DEFAULT_MAX_EDGE, bounds.outWidth);
+        assertEquals(PhotoCompressor.DEFAULT_MAX_EDGE * CAMERA_HEIGHT / CAMERA_WIDTH, bounds.outHeight);
+
+        assertTrue("se esperaba al menos 4x menos: " + original.length() + " vs " + compressed.length(),
+                compressed.length() * 4 < original.length());
+
+        int orientation = new ExifInterface(compressed.getAbsolutePath()).getAttributeInt(
+                ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED);
+        assertEquals(ExifInterface.ORIENTATION_ROTATE_90, orientation);
+    }
+
+    @Test
+    public void compressedCopyCutsBytesPerOrder() throws Exception {
+        Order order = new Order("Cliente", "0999", "Calle 1", "2 cajas", Order.PAYMENT_CASH,
+                original.getPath(), -0.18, -78.47, "2024-05-01 10:00:00");
+        order.setId(1);
+
+        // Antes de comprimir: sube el original
+        long before = uploadedBytes(order);
+        // Con la copia lista: sube la comprimida
+        File compressed = PhotoCompressor.compress(original.getPath());
+        order.setCompressedPhotoPath(compressed.getPath());
+        long after = uploadedBytes(order);
+
+        // El cuerpo es la foto más unos cientos de bytes de campos y cabeceras
+        assertTrue(before >= original.length());
+        assertTrue(after  >= compressed.length());
+        assertTrue(after - compressed.length() < 4096);
+        assertTrue("se esperaba al menos 4x menos: " + before + " vs " + after, after * 4 < before);
+    }
+
+    @Test
+    public void missingCompressedCopyFallsBackToOriginal() throws Exception {
+        Order order = new Order("Cliente", "0999", "Calle 1", "2 cajas", Order.PAYMENT_CASH,
+                original.getPath(), -0.18, -78.47, "2024-05-01 10:00:00");
+        order.setId(2);
+        // Ruta guardada pero el archivo se borró (limpieza por cuota)
+        order.setCompressedPhotoPath(PhotoCompressor.compressedFileFor(original.getPath()).getPath());
+
+        assertTrue(uploadedBytes(order) >= original.length());
+    }
+
+    // ── Ayudantes ────────────────────────────────────────────────────────────
+
+    private long uploadedBytes(Order order) throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"serverId\":\"S" + order.getId() + "\"}")
+                .setHeader("Content-Type", "application/json"));
+        assertTrue(uploader.upload(order).success);
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/orders", request.getPath());
+        return request.getBodySize();
+    }
+
+    /**
+     * JPEG de 12 MP con degradados y ruido leve, para que pese lo que pesa
+     * una foto real de esa resolución, y orientación EXIF como la de la
+     * cámara en vertical.
+     */
+    private static void writeCameraPhoto(File file) throws Exception {
+        Bitmap bitmap = Bitmap.createBitmap(CAMERA_WIDTH, CAMERA_HEIGHT, Bitmap.Config.ARGB_8888);
+        int[]  row    = new int[CAMERA_WIDTH];
+        Random random = new Random(42);
+        for (int y = 0; y < CAMERA_HEIGHT; y++) {
+            for (int x = 0; x < CAMERA_WIDTH; x++) {
+                int noise = random.nextInt(24);
+                int r = (x * 255 / CAMERA_WIDTH + noise) & 0xff;
+                int g = (y * 255 / CAMERA_HEIGHT + noise) & 0xff;
+                int b = ((x + y) * 127 / (CAMERA_WIDTH + CAMERA_HEIGHT) + noise) & 0xff;
+                row[x] = 0xff000000 | (r << 16) | (g << 8) | b;
+            }
+            bitmap.setPixels(row, 0, CAMERA_WIDTH, 0, y, CAMERA_WIDTH, 1);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, CAMERA_QUALITY, out);
+        } finally {
+            bitmap.recycle();
+        }
+
+        ExifInterface exif = new ExifInterface(file.getAbsolutePath());
+        exif.setAttribute(ExifInterface.TAG_ORIENTATION, String.valueOf(ExifInterface.ORIENTATION_ROTATE_90));
+        exif.saveAttributes();
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) for (File child : children) deleteRecursively(child);
+        file.delete();
+    }
+}
@@ -0,0 +1,166 @@
+package com.venegas.pedidos.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.venegas.pedidos.models.Order;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Costo por fila de la lista: decodificar la miniatura (generándola o desde
+ * disco) contra decodificar la foto comprimida que se mostraría sin ella,
+ * en tiempo y en memoria del Bitmap.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ThumbnailCacheBenchmarkTest {
+
+    private static final String TAG     = "ThumbnailBenchmark";
+    private static final int    ROWS    = 30;
+    private static final long   BASE_ID = 9_000_000L;   // lejos de los pedidos reales
+
+    private ThumbnailCache cache;
+    private File           photosDir;
+    private List<Order>    orders;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        cache     = ThumbnailCache.getInstance(context);
+        photosDir = new File(context.getCacheDir(), "thumb_bench");
+        photosDir.mkdirs();
+
+        // Fotos del tamaño de la versión comprimida que sube la app
+        orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            File photo = new File(photosDir, "foto_" + i + ".jpg");
+            writePhoto(photo, PhotoCompressor.DEFAULT_MAX_EDGE, PhotoCompressor.DEFAULT_MAX_EDGE * 3 / 4, i);
+            Order o = new Order("Cliente " + i, null, null, "1 caja", Order.PAYMENT_CASH,
+                    photo.getAbsolutePath(), 0, 0, "2024-05-01 10:00:00");
+            o.setId(BASE_ID + i);
+            orders.add(o);
+        }
+        clearThumbnails();
+    }
+
+    @After
+    public void tearDown() {
+        clearThumbnails();
+        File[] files = photosDir.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        photosDir.delete();
+    }
+
+    @Test
+    public void concurrentLoadsOfSameOrderGiveOneValidThumbnail() {
+        // prefetch y la carga de la fila piden los mismos pedidos a la vez
+        cache.prefetch(orders);
+        for (Order o : orders) {
+            Bitmap bitmap = cache.loadBlocking(o);
+            assertNotNull("sin miniatura para " + o.getId(), bitmap);
+            assertEquals(ThumbnailCache.THUMB_SIZE, bitmap.getWidth());
+        }
+
+        for (Order o : orders) {
+            File thumb = cache.fileFor(o.getId());
+            assertFalse(new File(thumb.getPath() + ".tmp").exists());
+            BitmapFactory.Options bounds = new BitmapFactory.Options();
+            bounds.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(thumb.getAbsolutePath(), bounds);
+            assertEquals(ThumbnailCache.THUMB_SIZE, bounds.outWidth);
+            assertEquals(ThumbnailCache.THUMB_SIZE, bounds.outHeight);
+        }
+    }
+
+    @Test
+    public void thumbnailRowIsCheaperThanDecodingThePhoto() {
+        long[] generated = new long[ROWS];
+        long[] fromDisk  = new long[ROWS];
+        long[] photo     = new long[ROWS];
+        long   thumbBytes = 0, photoBytes = 0;
+
+        for (int i = 0; i < ROWS; i++) {
+            long start = System.nanoTime();
+            assertNotNull(cache.loadBlocking(orders.get(i)));
+            generated[i] = System.nanoTime() - start;
+        }
+        for (Order o : orders) cache.evict(o.getId());
+
+        for (int i = 0; i < ROWS; i++) {
+            long start = System.nanoTime();
+            Bitmap thumb = cache.loadBlocking(orders.get(i));
+            fromDisk[i] = System.nanoTime() - start;
+            thumbBytes  = Math.max(thumbBytes, thumb.getAllocationByteCount());
+
+            // Lo que costaría la fila mostrando la foto directamente
+            start = System.nanoTime();
+            Bitmap full = BitmapFactory.decodeFile(orders.get(i).getPhotoPath());
+            photo[i]   = System.nanoTime() - start;
+            photoBytes = Math.max(photoBytes, full.getAllocationByteCount());
+            full.recycle();
+        }
+
+        Log.i(TAG, String.format(Locale.US,
+                "%d filas: miniatura nueva p50 %.1f ms, desde disco p50 %.1f ms / %d KB; "
+                        + "foto p50 %.1f ms / %d KB",
+                ROWS, median(generated) / 1e6, median(fromDisk) / 1e6, thumbBytes / 1024,
+                median(photo) / 1e6, photoBytes / 1024));
+
+        // RGB_565: dos bytes por pixel
+        assertEquals(ThumbnailCache.THUMB_SIZE * ThumbnailCache.THUMB_SIZE * 2, thumbBytes);
+        assertTrue(thumbBytes * 20 < photoBytes);
+        assertTrue(median(fromDisk) < median(photo));
+    }
+
+    private void clearThumbnails() {
+        for (Order o : orders) {
+            cache.evict(o.getId());
+            cache.fileFor(o.getId()).delete();
+        }
+    }
+
+    /** JPEG con algo de textura, para que no se comprima a casi nada. */
+    private static void writePhoto(File file, int width, int height, int seed) throws Exception {
+        int[] row = new int[width];
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = (x * 7 + y * 13 + seed * 31 + (x * y) % 97) & 0xff;
+                row[x] = 0xff000000 | v << 16 | (255 - v) << 8 | (v * 3 & 0xff);
+            }
+            bitmap.setPixels(row, 0, width, 0, y, width, 1);
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,29 @@
+package com.venegas.pedidos;
+
+import android.app.Application;
+
+import com.venegas.pedidos.network.RetrofitClient;
+import com.venegas.pedidos.sync.SyncScheduler;
+import com.venegas.pedidos.sync.SyncSettings;
+import com.venegas.pedidos.utils.SessionManager;
+
+/**
+ * PedidosApp — punto de entrada del proceso.
+ * Inicializa lo que necesita un Context de aplicación antes de la primera Activity.
+ */
+public class PedidosApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        RetrofitClient.init(this);
+        SyncScheduler.watchNetwork(this);
+
+        // Al iniciar sesión se sube lo que quedó pendiente sin sesión.
+        // Al cerrarla se olvida el cursor de cambios: pertenece a ese usuario.
+        SessionManager.getInstance(this).addListener(session -> {
+            if (session.isLoggedIn()) SyncScheduler.requestSync(this);
+            else                      new SyncSettings(this).setPullCursor(null);
+        });
+    }
+}
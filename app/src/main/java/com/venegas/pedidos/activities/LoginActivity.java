@@ -37,7 +37,7 @@ public class LoginActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
 
-        sessionManager = new SessionManager(this);
+        sessionManager = SessionManager.getInstance(this);
 
         // Si ya hay sesión activa, ir directo a MainActivity
         if (sessionManager.isLoggedIn()) {
@@ -1,39 +1,58 @@
 package com.venegas.pedidos.activities;
 
+import android.Manifest;
 import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
+import android.widget.EditText;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.FileProvider;
+import androidx.core.util.Pair;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.button.MaterialButton;
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
+import com.google.android.material.datepicker.MaterialDatePicker;
 import com.venegas.pedidos.R;
 import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.database.OrderExporter;
+import com.venegas.pedidos.database.OrderFilter;
+import com.venegas.pedidos.database.OrderImporter;
+import com.venegas.pedidos.database.OrderRepository;
 import com.venegas.pedidos.models.Order;
-import com.venegas.pedidos.network.ApiService;
-import com.venegas.pedidos.network.RetrofitClient;
+import com.venegas.pedidos.sync.SyncEngine;
+import com.venegas.pedidos.sync.SyncScheduler;
+import com.venegas.pedidos.sync.SyncSettings;
 import com.venegas.pedidos.utils.SessionManager;
+import com.venegas.pedidos.utils.ThumbnailCache;
 
-import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
-
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.RequestBody;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MainActivity — pantalla principal con la lista de pedidos
@@ -47,17 +66,44 @@ public class MainActivity extends AppCompatActivity {
     private TextView       tvPendingCount;
     private TextView       tvSyncedCount;
     private TextView       tvErrorCount;
+    private EditText       etSearch;
+    private Chip           chipDate;
 
     private OrdersAdapter  adapter;
-    private List<Order>    orderList;
-    private DatabaseHelper db;
+    private OrderRepository repository;
     private SessionManager sessionManager;
 
-    // Contador para la sincronización secuencial
-    private int syncIndex      = 0;
-    private int syncSuccess    = 0;
-    private int syncErrors     = 0;
-    private List<Order> pendingOrders;
+    private SyncEngine     syncEngine;
+    private boolean        manualSync = false;   // el resultado se muestra en un diálogo
+
+    // Opciones del menú
+    private static final int MENU_LOGOUT      = 1;
+    private static final int MENU_AUTO_SYNC   = 2;
+    private static final int MENU_PHOTOS_WIFI = 3;
+    private static final int MENU_EXPORT      = 4;
+    private static final int MENU_IMPORT      = 5;
+
+    private static final int REQ_NOTIFICATIONS = 201;
+
+    // Paginación de la lista (keyset sobre created_at DESC, id DESC)
+    private static final int PAGE_SIZE = 50;
+    private int listGeneration = 0;   // descarta páginas de una recarga anterior
+
+    // Búsqueda: se consulta cuando el usuario deja de escribir
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    private static final int  SEARCH_LIMIT       = 100;
+    private final Handler  searchHandler = new Handler(Looper.getMainLooper());
+    private final Runnable searchRunnable = this::loadOrders;
+    private String searchQuery = "";
+
+    // Archivo a importar (CSV o NDJSON)
+    private final ActivityResultLauncher<String[]> importLauncher =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), uri -> {
+                if (uri != null) importOrders(uri);
+            });
+
+    // Filtros activos de la lista (se aplican en SQL)
+    private final OrderFilter filter = new OrderFilter();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -67,13 +113,31 @@ public class MainActivity extends AppCompatActivity {
         window.clearFlags(WindowManager.LayoutParams.FLAG_TRANSLUCENT_STATUS);
         window.addFlags(WindowManager.LayoutParams.FLAG_DRAWS_SYSTEM_BAR_BACKGROUNDS);
         window.setStatusBarColor(getResources().getColor(R.color.primary, null));
-        db             = DatabaseHelper.getInstance(this);
-        sessionManager = new SessionManager(this);
+        repository     = OrderRepository.getInstance(this);
+        sessionManager = SessionManager.getInstance(this);
+        syncEngine     = SyncEngine.getInstance(this);
 
         setupToolbar();
         bindViews();
         setupRecyclerView();
         setupButtons();
+        setupSearch();
+        setupFilters();
+
+        // Sync periódica en segundo plano + lo que haya quedado pendiente
+        SyncScheduler.schedulePeriodic(this);
+        SyncScheduler.requestSync(this);
+        SyncScheduler.scheduleStorageMaintenance(this);
+        requestNotificationPermission();
+    }
+
+    /** La notificación de progreso de la sync necesita este permiso (Android 13+). */
+    private void requestNotificationPermission() {
+        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this,
+                    new String[]{Manifest.permission.POST_NOTIFICATIONS}, REQ_NOTIFICATIONS);
+        }
     }
 
     @Override
@@ -81,6 +145,20 @@ public class MainActivity extends AppCompatActivity {
         super.onResume();
         // Recargar lista cada vez que se vuelve a la pantalla
         loadOrders();
+
+        // Re-enganchar al progreso si la sync siguió corriendo sin la Activity
+        syncEngine.addListener(syncListener);
+        if (syncEngine.isRunning()) {
+            syncListener.onSyncStarted(syncEngine.getTotal());
+            progressSync.setProgress(syncEngine.getDone());
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        syncEngine.removeListener(syncListener);
+        searchHandler.removeCallbacks(searchRunnable);
     }
 
     private void setupToolbar() {
@@ -98,10 +176,18 @@ public class MainActivity extends AppCompatActivity {
         tvPendingCount  = findViewById(R.id.tvPendingCount);
         tvSyncedCount   = findViewById(R.id.tvSyncedCount);
         tvErrorCount    = findViewById(R.id.tvErrorCount);
+        etSearch        = findViewById(R.id.etSearch);
+        chipDate        = findViewById(R.id.chipDate);
     }
 
     private void setupRecyclerView() {
         recyclerOrders.setLayoutManager(new LinearLayoutManager(this));
+        adapter = new OrdersAdapter(ThumbnailCache.getInstance(this), order -> {
+            Intent intent = new Intent(this, OrderDetailActivity.class);
+            intent.putExtra("order_id", order.getId());
+            startActivity(intent);
+        }, this::loadNextPage);
+        recyclerOrders.setAdapter(adapter);
     }
 
     private void setupButtons() {
@@ -114,45 +200,149 @@ public class MainActivity extends AppCompatActivity {
         btnSync.setOnClickListener(v -> startSync());
     }
 
+    private void setupSearch() {
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                String query = s.toString().trim();
+                if (query.equals(searchQuery)) return;
+                searchQuery = query;
+                searchHandler.removeCallbacks(searchRunnable);
+                searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+            }
+        });
+    }
+
+    private void setupFilters() {
+        ChipGroup statusGroup  = findViewById(R.id.chipGroupStatus);
+        ChipGroup paymentGroup = findViewById(R.id.chipGroupPayment);
+
+        statusGroup.setOnCheckedStateChangeListener((group, checkedIds) -> {
+            int id = checkedIds.isEmpty() ? View.NO_ID : checkedIds.get(0);
+            filter.status = id == R.id.chipPending ? Order.STATUS_PENDING
+                    : id == R.id.chipSynced ? Order.STATUS_SYNCED
+                    : id == R.id.chipError  ? Order.STATUS_ERROR
+                    : null;
+            loadOrders();
+        });
+        paymentGroup.setOnCheckedStateChangeListener((group, checkedIds) -> {
+            int id = checkedIds.isEmpty() ? View.NO_ID : checkedIds.get(0);
+            filter.paymentType = id == R.id.chipCash ? Order.PAYMENT_CASH
+                    : id == R.id.chipTransfer ? Order.PAYMENT_TRANSFER
+                    : null;
+            loadOrders();
+        });
+
+        chipDate.setOnClickListener(v -> pickDateRange());
+        chipDate.setOnCloseIconClickListener(v -> {
+            filter.fromDate = null;
+            filter.toDate   = null;
+            chipDate.setText("📅 Fechas");
+            chipDate.setCloseIconVisible(false);
+            loadOrders();
+        });
+    }
+
+    /** Rango de días (inclusive) → [inicio del primer día, inicio del día siguiente al último). */
+    private void pickDateRange() {
+        MaterialDatePicker<Pair<Long, Long>> picker = MaterialDatePicker.Builder.dateRangePicker()
+                .setTitleText("Filtrar por fecha")
+                .build();
+        picker.addOnPositiveButtonClickListener(range -> {
+            if (range.first == null || range.second == null) return;
+            // El selector devuelve medianoche UTC de cada día
+            SimpleDateFormat day = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+            day.setTimeZone(TimeZone.getTimeZone("UTC"));
+            filter.fromDate = day.format(new Date(range.first)) + " 00:00:00";
+            filter.toDate   = day.format(new Date(range.second + TimeUnit.DAYS.toMillis(1))) + " 00:00:00";
+
+            SimpleDateFormat label = new SimpleDateFormat("dd/MM", Locale.getDefault());
+            label.setTimeZone(TimeZone.getTimeZone("UTC"));
+            chipDate.setText("📅 " + label.format(new Date(range.first))
+                    + " – " + label.format(new Date(range.second)));
+            chipDate.setCloseIconVisible(true);
+            loadOrders();
+        });
+        picker.show(getSupportFragmentManager(), "date_range");
+    }
+
     // ── Cargar lista de pedidos desde SQLite ──────────────────────────────────
+
+    /** Recarga desde la primera página. La consulta corre fuera del hilo de UI. */
     private void loadOrders() {
-        orderList = db.getAllOrders();
+        int generation = ++listGeneration;
+        if (!searchQuery.isEmpty()) {
+            searchOrders(generation);
+            return;
+        }
+        repository.getOrdersPage(filter, null, PAGE_SIZE, page -> {
+            if (generation != listGeneration || isFinishing() || page == null) return;
+
+            if (page.isEmpty() && filter.isEmpty()) {
+                recyclerOrders.setVisibility(View.GONE);
+                layoutEmpty.setVisibility(View.VISIBLE);
+            } else {
+                recyclerOrders.setVisibility(View.VISIBLE);
+                layoutEmpty.setVisibility(View.GONE);
+            }
+            adapter.setOrders(page, page.size() == PAGE_SIZE);
+        });
+        refreshStats();
+    }
 
-        if (orderList.isEmpty()) {
-            recyclerOrders.setVisibility(View.GONE);
-            layoutEmpty.setVisibility(View.VISIBLE);
-        } else {
+    /** Resultados de búsqueda (índice FTS); sin paginación, hasta SEARCH_LIMIT. */
+    private void searchOrders(int generation) {
+        repository.searchOrders(searchQuery, filter, SEARCH_LIMIT, results -> {
+            if (generation != listGeneration || isFinishing() || results == null) return;
             recyclerOrders.setVisibility(View.VISIBLE);
             layoutEmpty.setVisibility(View.GONE);
+            adapter.setOrders(results, false);
+        });
+        refreshStats();
+    }
 
-            adapter = new OrdersAdapter(orderList, order -> {
-                Intent intent = new Intent(this, OrderDetailActivity.class);
-                intent.putExtra("order_id", order.getId());
-                startActivity(intent);
-            });
-            recyclerOrders.setAdapter(adapter);
-        }
-
-        updateStats();
+    /** Carga la página siguiente a last y la agrega al final de la lista. */
+    private void loadNextPage(Order last) {
+        int generation = listGeneration;
+        repository.getOrdersPage(filter, last, PAGE_SIZE, page -> {
+            if (generation != listGeneration || isFinishing() || page == null) return;
+            adapter.appendOrders(page, page.size() == PAGE_SIZE);
+        });
     }
 
-    private void updateStats() {
-        int pending = db.countByStatus(Order.STATUS_PENDING);
-        int synced  = db.countByStatus(Order.STATUS_SYNCED);
-        int error   = db.countByStatus(Order.STATUS_ERROR);
+    /** Relee solo los contadores de la cabecera (lectura O(1)). */
+    private void refreshStats() {
+        repository.getStatusCounts(counts -> {
+            if (counts != null && !isFinishing()) updateStats(counts);
+        });
+    }
 
-        tvPendingCount.setText("⏳ " + pending + "\nPendientes");
-        tvSyncedCount.setText("✅ " + synced + "\nSincronizados");
-        tvErrorCount.setText("❌ " + error + "\nErrores");
+    private void updateStats(DatabaseHelper.StatusCounts counts) {
+        tvPendingCount.setText("⏳ " + counts.pending + "\nPendientes");
+        tvSyncedCount.setText("✅ " + counts.synced + "\nSincronizados");
+        tvErrorCount.setText("❌ " + counts.error + "\nErrores");
     }
 
     // ── SINCRONIZACIÓN MANUAL ─────────────────────────────────────────────────
 
     private void startSync() {
-        pendingOrders = db.getPendingOrders();
+        if (syncEngine.isRunning()) {
+            Toast.makeText(this, "Ya hay una sincronización en curso", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // La sync manual también reintenta los errores reintentables aún no vencidos
+        repository.getSyncableCount(count -> {
+            if (count != null && !isFinishing()) confirmSync(count);
+        });
+    }
 
-        if (pendingOrders.isEmpty()) {
-            Toast.makeText(this, "✅ No hay pedidos pendientes de sincronización", Toast.LENGTH_SHORT).show();
+    private void confirmSync(int pendingCount) {
+        if (pendingCount == 0) {
+            Toast.makeText(this, "✅ No hay pedidos por sincronizar", Toast.LENGTH_SHORT).show();
             return;
         }
 
@@ -165,117 +355,109 @@ public class MainActivity extends AppCompatActivity {
         // Mostrar confirmación
         new AlertDialog.Builder(this)
                 .setTitle("Sincronizar pedidos")
-                .setMessage("Se enviarán " + pendingOrders.size() + " pedido(s) al servidor.\n¿Continuar?")
+                .setMessage("Se enviarán " + pendingCount + " pedido(s) al servidor.\n¿Continuar?")
                 .setPositiveButton("Sincronizar", (d, w) -> {
-                    syncIndex   = 0;
-                    syncSuccess = 0;
-                    syncErrors  = 0;
-                    progressSync.setVisibility(View.VISIBLE);
-                    syncNext();
+                    // Corre en WorkManager: sigue aunque se cierre la pantalla
+                    manualSync = true;
+                    SyncScheduler.requestManualSync(this);
                 })
                 .setNegativeButton("Cancelar", null)
                 .show();
     }
 
-    /** Sincroniza los pedidos pendientes de forma secuencial (uno a uno). */
-    private void syncNext() {
-        if (syncIndex >= pendingOrders.size()) {
+    /** Refleja en pantalla el progreso publicado por el SyncEngine. */
+    private final SyncEngine.SyncListener syncListener = new SyncEngine.SyncListener() {
+        @Override
+        public void onAuthRequired() {
+            // Los pedidos siguen pendientes; se suben al volver a iniciar sesión
+            manualSync = false;
+            Toast.makeText(MainActivity.this,
+                    "Tu sesión expiró. Vuelve a iniciar sesión.", Toast.LENGTH_LONG).show();
+            logout();
+        }
+
+        @Override
+        public void onSyncStarted(int total) {
+            progressSync.setIndeterminate(false);
+            progressSync.setMax(Math.max(total, 1));
+            progressSync.setProgress(0);
+            progressSync.setVisibility(View.VISIBLE);
+        }
+
+        @Override
+        public void onOrderSynced(Order order, int done, int total) {
+            progressSync.setProgress(done);
+            // Actualizar solo la fila del pedido y los contadores
+            adapter.updateOrder(order);
+            refreshStats();
+        }
+
+        @Override
+        public void onSyncFinished(int success, int errors) {
             // ── Fin de la sincronización ──────────────────────────────────
             progressSync.setVisibility(View.GONE);
-            String msg = "Sincronización completada:\n✅ " + syncSuccess + " exitosos\n❌ " + syncErrors + " errores";
-            new AlertDialog.Builder(this)
+            refreshStats();
+            // El servidor cambió pedidos ya sincronizados (estado o datos)
+            int pulled = syncEngine.getPulled();
+            if (pulled > 0) loadOrders();
+
+            // Las corridas automáticas no interrumpen con un diálogo
+            if (!manualSync) return;
+            manualSync = false;
+            String msg = "Sincronización completada:\n✅ " + success + " exitosos\n❌ " + errors + " errores";
+            if (pulled > 0) msg += "\n🔄 " + pulled + " actualizados desde el servidor";
+            new AlertDialog.Builder(MainActivity.this)
                     .setTitle("Resultado")
                     .setMessage(msg)
                     .setPositiveButton("OK", null)
                     .show();
-            loadOrders(); // Recargar lista
-            return;
         }
-
-        Order order = pendingOrders.get(syncIndex);
-        syncOrder(order, () -> {
-            syncIndex++;
-            syncNext(); // procesar el siguiente
-        });
-    }
-
-    /** Envía un pedido al servidor. Llama a onDone cuando termina (éxito o error). */
-    private void syncOrder(Order order, Runnable onDone) {
-        String authHeader = sessionManager.getBearerToken();
-
-        // Preparar campos de texto
-        RequestBody clientName    = toReqBody(order.getClientName());
-        RequestBody clientPhone   = toReqBody(order.getClientPhone() != null ? order.getClientPhone() : "");
-        RequestBody clientAddress = toReqBody(order.getClientAddress() != null ? order.getClientAddress() : "");
-        RequestBody orderDetail   = toReqBody(order.getOrderDetail());
-        RequestBody paymentType   = toReqBody(order.getPaymentType() != null ? order.getPaymentType() : "");
-        RequestBody latitude      = toReqBody(String.valueOf(order.getLatitude()));
-        RequestBody longitude     = toReqBody(String.valueOf(order.getLongitude()));
-        RequestBody localId       = toReqBody(String.valueOf(order.getId()));
-        RequestBody createdAt     = toReqBody(order.getCreatedAt() != null ? order.getCreatedAt() : "");
-
-        // Preparar foto (puede ser null si no se tomó)
-        MultipartBody.Part photoPart = null;
-        if (order.getPhotoPath() != null && !order.getPhotoPath().isEmpty()) {
-            File photoFile = new File(order.getPhotoPath());
-            if (photoFile.exists()) {
-                RequestBody photoBody = RequestBody.create(
-                        MediaType.parse("image/jpeg"), photoFile);
-                photoPart = MultipartBody.Part.createFormData("photo", photoFile.getName(), photoBody);
-            }
-        }
-
-        RetrofitClient.getService().createOrder(
-                authHeader, clientName, clientPhone, clientAddress,
-                orderDetail, paymentType, latitude, longitude,
-                localId, createdAt, photoPart
-        ).enqueue(new Callback<ApiService.OrderResponse>() {
-
-            @Override
-            public void onResponse(Call<ApiService.OrderResponse> call,
-                                   Response<ApiService.OrderResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    // ✅ Éxito: marcar como sincronizado
-                    db.updateOrderStatus(order.getId(), Order.STATUS_SYNCED, null,
-                            response.body().serverId);
-                    syncSuccess++;
-                } else {
-                    // ❌ Error HTTP (400, 401, 500...)
-                    String errMsg = "HTTP " + response.code();
-                    if (response.code() == 401) {
-                        errMsg = "Token inválido o expirado";
-                    }
-                    db.updateOrderStatus(order.getId(), Order.STATUS_ERROR, errMsg, null);
-                    syncErrors++;
-                }
-                onDone.run();
-            }
-
-            @Override
-            public void onFailure(Call<ApiService.OrderResponse> call, Throwable t) {
-                // ❌ Error de red (sin conexión)
-                String errMsg = "Sin conexión: " + t.getMessage();
-                db.updateOrderStatus(order.getId(), Order.STATUS_ERROR, errMsg, null);
-                syncErrors++;
-                onDone.run();
-            }
-        });
-    }
-
-    private RequestBody toReqBody(String value) {
-        return RequestBody.create(MediaType.parse("text/plain"), value);
-    }
+    };
 
     // ── Menú opciones (logout) ────────────────────────────────────────────────
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
-        menu.add(0, 1, 0, "Cerrar sesión").setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
+        SyncSettings settings = new SyncSettings(this);
+        menu.add(0, MENU_AUTO_SYNC, 0, "Sincronización automática")
+                .setCheckable(true)
+                .setChecked(settings.isAutoSyncEnabled())
+                .setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
+        menu.add(0, MENU_PHOTOS_WIFI, 0, "Fotos solo por Wi-Fi")
+                .setCheckable(true)
+                .setChecked(settings.isPhotosOnWifiOnly())
+                .setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
+        menu.add(0, MENU_IMPORT, 0, "Importar pedidos").setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
+        menu.add(0, MENU_EXPORT, 0, "Exportar pedidos").setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
+        menu.add(0, MENU_LOGOUT, 0, "Cerrar sesión").setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
         return true;
     }
 
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
-        if (item.getItemId() == 1) {
+        if (item.getItemId() == MENU_AUTO_SYNC) {
+            boolean enabled = !item.isChecked();
+            item.setChecked(enabled);
+            new SyncSettings(this).setAutoSyncEnabled(enabled);
+            SyncScheduler.schedulePeriodic(this);
+            if (enabled) SyncScheduler.requestSync(this);
+            return true;
+        }
+        if (item.getItemId() == MENU_PHOTOS_WIFI) {
+            boolean enabled = !item.isChecked();
+            item.setChecked(enabled);
+            new SyncSettings(this).setPhotosOnWifiOnly(enabled);
+            return true;
+        }
+        if (item.getItemId() == MENU_IMPORT) {
+            importLauncher.launch(new String[]{"text/*", "application/json",
+                    "application/x-ndjson", "application/octet-stream"});
+            return true;
+        }
+        if (item.getItemId() == MENU_EXPORT) {
+            chooseExport();
+            return true;
+        }
+        if (item.getItemId() == MENU_LOGOUT) {
             new AlertDialog.Builder(this)
                     .setTitle("Cerrar sesión")
                     .setMessage("¿Deseas cerrar sesión?")
@@ -287,6 +469,73 @@ public class MainActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    // ── Importación ───────────────────────────────────────────────────────────
+
+    private void importOrders(Uri uri) {
+        AlertDialog progressDialog = new AlertDialog.Builder(this)
+                .setTitle("Importando pedidos")
+                .setMessage("Leyendo archivo…")
+                .setCancelable(false)
+                .show();
+
+        repository.importOrders(uri,
+                processed -> progressDialog.setMessage("Filas procesadas: " + processed),
+                result -> {
+                    progressDialog.dismiss();
+                    if (isFinishing()) return;
+                    if (result == null) {
+                        Toast.makeText(this, "❌ No se pudo leer el archivo", Toast.LENGTH_LONG).show();
+                        return;
+                    }
+                    showImportResult(result);
+                    loadOrders();
+                });
+    }
+
+    private void showImportResult(OrderImporter.Result result) {
+        StringBuilder msg = new StringBuilder()
+                .append("✅ ").append(result.imported).append(" importados\n")
+                .append("↺ ").append(result.duplicates).append(" ya existían\n")
+                .append("❌ ").append(result.invalid).append(" inválidos");
+        for (String error : result.errors) msg.append("\n• ").append(error);
+        new AlertDialog.Builder(this)
+                .setTitle("Importación")
+                .setMessage(msg)
+                .setPositiveButton("OK", null)
+                .show();
+    }
+
+    // ── Exportación ───────────────────────────────────────────────────────────
+
+    private void chooseExport() {
+        String[] options = {"CSV", "NDJSON (JSON por línea)", "CSV + fotos (ZIP)"};
+        new AlertDialog.Builder(this)
+                .setTitle("Exportar pedidos")
+                .setItems(options, (d, which) -> {
+                    OrderExporter.Format format = which == 1
+                            ? OrderExporter.Format.NDJSON : OrderExporter.Format.CSV;
+                    exportOrders(format, which == 2);
+                })
+                .show();
+    }
+
+    private void exportOrders(OrderExporter.Format format, boolean withPhotos) {
+        Toast.makeText(this, "Exportando pedidos…", Toast.LENGTH_SHORT).show();
+        repository.exportOrders(format, withPhotos, file -> {
+            if (isFinishing()) return;
+            if (file == null) {
+                Toast.makeText(this, "❌ No se pudo exportar", Toast.LENGTH_LONG).show();
+                return;
+            }
+            Intent share = new Intent(Intent.ACTION_SEND)
+                    .setType(withPhotos ? "application/zip" : format.mimeType)
+                    .putExtra(Intent.EXTRA_STREAM, FileProvider.getUriForFile(this,
+                            getPackageName() + ".fileprovider", file))
+                    .addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            startActivity(Intent.createChooser(share, "Compartir exportación"));
+        });
+    }
+
     private void logout() {
         sessionManager.clearSession();
         startActivity(new Intent(this, LoginActivity.class));
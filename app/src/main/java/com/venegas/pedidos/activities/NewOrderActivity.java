@@ -8,6 +8,7 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.Environment;
 import android.provider.MediaStore;
+import android.util.Log;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
@@ -32,8 +33,10 @@ import com.google.android.material.textfield.TextInputEditText;
 import com.journeyapps.barcodescanner.ScanContract;
 import com.journeyapps.barcodescanner.ScanOptions;
 import com.venegas.pedidos.R;
-import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.database.OrderRepository;
 import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.utils.AppExecutors;
+import com.venegas.pedidos.utils.PhotoCompressor;
 import com.venegas.pedidos.utils.QRParser;
 
 import java.io.File;
@@ -48,6 +51,8 @@ import java.util.Locale;
  */
 public class NewOrderActivity extends AppCompatActivity {
 
+    private static final String TAG = "NewOrderActivity";
+
     // ── Views ─────────────────────────────────────────────────────────────────
     private TextInputEditText etClientName;
     private TextInputEditText etClientPhone;
@@ -62,10 +67,12 @@ public class NewOrderActivity extends AppCompatActivity {
     private double  currentLatitude  = 0.0;
     private double  currentLongitude = 0.0;
     private String  currentPhotoPath = null;
+    private String  pendingPhotoPath = null;   // archivo entregado a la cámara, aún sin foto
     private Uri     photoUri         = null;
 
     private FusedLocationProviderClient locationClient;
-    private DatabaseHelper db;
+    private OrderRepository repository;
+    private MaterialButton  btnSaveOrder;
 
     // ── Permisos solicitados ──────────────────────────────────────────────────
     private static final int REQ_LOCATION = 100;
@@ -76,11 +83,19 @@ public class NewOrderActivity extends AppCompatActivity {
     // Resultado de la cámara
     private final ActivityResultLauncher<Uri> cameraLauncher =
             registerForActivityResult(new ActivityResultContracts.TakePicture(), success -> {
-                if (success && currentPhotoPath != null) {
+                if (success && pendingPhotoPath != null) {
+                    // Una foto nueva reemplaza a la anterior de este pedido
+                    deletePhoto(currentPhotoPath);
+                    currentPhotoPath = pendingPhotoPath;
+                    pendingPhotoPath = null;
                     imgPreview.setVisibility(View.VISIBLE);
                     Glide.with(this).load(currentPhotoPath).into(imgPreview);
                     tvPhotoPath.setText("✅ Foto guardada");
+                    compressPhoto(currentPhotoPath);
                 } else {
+                    // Cámara cancelada: borrar el archivo vacío que se le preparó
+                    deletePhoto(pendingPhotoPath);
+                    pendingPhotoPath = null;
                     showToast("No se tomó la foto");
                 }
             });
@@ -102,7 +117,7 @@ public class NewOrderActivity extends AppCompatActivity {
         window.clearFlags(WindowManager.LayoutParams.FLAG_TRANSLUCENT_STATUS);
         window.addFlags(WindowManager.LayoutParams.FLAG_DRAWS_SYSTEM_BAR_BACKGROUNDS);
         window.setStatusBarColor(getResources().getColor(R.color.primary, null));
-        db             = DatabaseHelper.getInstance(this);
+        repository     = OrderRepository.getInstance(this);
         locationClient = LocationServices.getFusedLocationProviderClient(this);
 
         setupToolbar();
@@ -141,7 +156,7 @@ public class NewOrderActivity extends AppCompatActivity {
         MaterialButton btnReadQR   = findViewById(R.id.btnReadQR);
         MaterialButton btnTakePhoto = findViewById(R.id.btnTakePhoto);
         MaterialButton btnRefreshGPS = findViewById(R.id.btnRefreshGPS);
-        MaterialButton btnSaveOrder  = findViewById(R.id.btnSaveOrder);
+        btnSaveOrder                 = findViewById(R.id.btnSaveOrder);
 
         btnReadQR.setOnClickListener(v -> launchQRScanner());
         btnTakePhoto.setOnClickListener(v -> launchCamera());
@@ -195,7 +210,7 @@ public class NewOrderActivity extends AppCompatActivity {
 
         try {
             File photoFile = createImageFile();
-            currentPhotoPath = photoFile.getAbsolutePath();
+            pendingPhotoPath = photoFile.getAbsolutePath();
             photoUri = FileProvider.getUriForFile(this,
                     getApplicationContext().getPackageName() + ".fileprovider", photoFile);
             cameraLauncher.launch(photoUri);
@@ -212,6 +227,27 @@ public class NewOrderActivity extends AppCompatActivity {
         return File.createTempFile(fileName, ".jpg", storageDir);
     }
 
+    /** Genera en segundo plano la versión reducida que se subirá al servidor. */
+    private void compressPhoto(String originalPath) {
+        AppExecutors.getInstance().mediaIO().execute(() -> {
+            try {
+                PhotoCompressor.compress(originalPath);
+            } catch (IOException e) {
+                // La sync subirá el original si la versión comprimida no existe
+                Log.w(TAG, "No se pudo comprimir la foto: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Borra una foto descartada y su versión comprimida (si ya se generó). */
+    private void deletePhoto(String path) {
+        if (path == null) return;
+        AppExecutors.getInstance().mediaIO().execute(() -> {
+            new File(path).delete();
+            PhotoCompressor.compressedFileFor(path).delete();
+        });
+    }
+
     // ── ESCÁNER QR ────────────────────────────────────────────────────────────
 
     private void launchQRScanner() {
@@ -272,25 +308,30 @@ public class NewOrderActivity extends AppCompatActivity {
 
         // Tipo de pago según RadioButton seleccionado
         int selectedId   = radioGroupPayment.getCheckedRadioButtonId();
-        String paymentType = (selectedId == R.id.rboTransfer) ? "transferencia" : "efectivo";
+        String paymentType = (selectedId == R.id.rboTransfer)
+                ? Order.PAYMENT_TRANSFER : Order.PAYMENT_CASH;
 
         // Fecha y hora actual
-        String createdAt = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault())
-                .format(new Date());
+        String createdAt = Order.formatCreatedAt(new Date());
 
         // Crear objeto Order y guardar en SQLite
         Order order = new Order(clientName, clientPhone, clientAddress,
                 orderDetail, paymentType, currentPhotoPath,
                 currentLatitude, currentLongitude, createdAt);
-
-        long newId = db.insertOrder(order);
-
-        if (newId != -1) {
-            showToast("✅ Pedido guardado (ID: " + newId + ")");
-            finish(); // volver a la lista
-        } else {
-            showToast("❌ Error al guardar el pedido. Intenta de nuevo.");
-        }
+        order.setCompressedPhotoPath(
+                PhotoCompressor.compressedFileFor(currentPhotoPath).getAbsolutePath());
+
+        btnSaveOrder.setEnabled(false); // evitar doble guardado mientras se escribe
+        repository.insertOrder(order, newId -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (newId != null && newId != -1) {
+                showToast("✅ Pedido guardado (ID: " + newId + ")");
+                finish(); // volver a la lista
+            } else {
+                btnSaveOrder.setEnabled(true);
+                showToast("❌ Error al guardar el pedido. Intenta de nuevo.");
+            }
+        });
     }
 
     // ── Permisos ──────────────────────────────────────────────────────────────
@@ -1,5 +1,8 @@
 package com.venegas.pedidos.activities;
 
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.view.View;
 import android.view.Window;
@@ -13,10 +16,10 @@ import androidx.cardview.widget.CardView;
 
 import com.bumptech.glide.Glide;
 import com.venegas.pedidos.R;
-import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.database.OrderRepository;
 import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.utils.ThumbnailCache;
 
-import java.io.File;
 import java.util.Locale;
 
 /**
@@ -41,13 +44,14 @@ public class OrderDetailActivity extends AppCompatActivity {
             return;
         }
 
-        Order order = DatabaseHelper.getInstance(this).getOrderById(orderId);
-        if (order == null) {
-            finish();
-            return;
-        }
-
-        populateViews(order);
+        OrderRepository.getInstance(this).getOrderById(orderId, order -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (order == null) {
+                finish();
+                return;
+            }
+            populateViews(order);
+        });
     }
 
     private void setupToolbar() {
@@ -81,7 +85,10 @@ public class OrderDetailActivity extends AppCompatActivity {
         // ── Estado ────────────────────────────────────────────────────────
         switch (order.getStatus()) {
             case Order.STATUS_SYNCED:
-                tvStatusBadge.setText("✅ Sincronizado");
+                // Estado en el servidor, si ya llegó por la sync incremental
+                tvStatusBadge.setText(order.getServerStatus() != null
+                        ? "✅ Sincronizado · " + order.getServerStatus()
+                        : "✅ Sincronizado");
                 tvStatusBadge.setBackgroundColor(
                         getResources().getColor(R.color.status_synced, null));
                 break;
@@ -125,25 +132,33 @@ public class OrderDetailActivity extends AppCompatActivity {
         }
 
         // ── Fotografía ────────────────────────────────────────────────────
-        if (order.getPhotoPath() != null && !order.getPhotoPath().isEmpty()) {
-            File photoFile = new File(order.getPhotoPath());
-            if (photoFile.exists()) {
-                Glide.with(this)
-                        .load(photoFile)
-                        .placeholder(R.drawable.ic_photo_placeholder)
-                        .error(R.drawable.ic_photo_placeholder)
-                        .centerCrop()
-                        .into(imgOrder);
-            } else {
+        // Se muestra la versión comprimida (1600 px) en vez del original de la
+        // cámara; mientras carga, la miniatura de la lista ya está en memoria.
+        // Si la foto ya se liberó por la cuota de almacenamiento, queda la miniatura.
+        // Qué archivo existe se revisa fuera del hilo principal.
+        ThumbnailCache thumbnails = ThumbnailCache.getInstance(this);
+        Bitmap thumb = thumbnails.getCached(order.getId());
+        Drawable placeholder = thumb != null
+                ? new BitmapDrawable(getResources(), thumb)
+                : getDrawable(R.drawable.ic_photo_placeholder);
+        imgOrder.setImageDrawable(placeholder);
+        thumbnails.resolveDisplayFile(order, photoFile -> {
+            if (isDestroyed()) return;
+            if (photoFile == null) {
                 imgOrder.setImageResource(R.drawable.ic_photo_placeholder);
+                return;
             }
-        } else {
-            imgOrder.setImageResource(R.drawable.ic_photo_placeholder);
-        }
+            Glide.with(this)
+                    .load(photoFile)
+                    .placeholder(placeholder)
+                    .error(R.drawable.ic_photo_placeholder)
+                    .centerCrop()
+                    .into(imgOrder);
+        });
 
         // ID del servidor si ya fue sincronizado
         if (order.getServerId() != null) {
             tvDateTime.append("\nID Servidor: " + order.getServerId());
         }
     }
-}
\ No newline at end of file
+}
@@ -5,18 +5,31 @@ import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.venegas.pedidos.R;
 import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.utils.ThumbnailCache;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Adaptador para el RecyclerView de la lista de pedidos.
+ * Trabaja por páginas: cuando el usuario se acerca al final de lo cargado
+ * pide la siguiente página a través de {@link OnLoadMoreListener}.
+ * Cada cambio se publica con AsyncListDiffer: el diff se calcula en segundo
+ * plano y solo se re-dibujan las filas que cambiaron.
+ * Las filas muestran la miniatura de la foto desde {@link ThumbnailCache};
+ * las de cada página nueva se cargan por adelantado.
  */
 public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewHolder> {
 
@@ -24,12 +37,106 @@ public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewH
         void onItemClick(Order order);
     }
 
-    private final List<Order> orders;
+    /** Se llama (en el hilo principal) cuando hace falta la página siguiente. */
+    public interface OnLoadMoreListener {
+        void onLoadMore(Order last);
+    }
+
+    // Filas de margen antes del final para pedir la siguiente página
+    private static final int PREFETCH_DISTANCE = 10;
+
+    // Miniaturas que se cargan por adelantado de cada página recibida
+    private static final int THUMB_PREFETCH = 20;
+
+    /** Un pedido es el mismo si coincide el id; se re-dibuja si cambió su estado o datos. */
+    private static final DiffUtil.ItemCallback<Order> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Order>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Order a, @NonNull Order b) {
+                    return a.getId() == b.getId();
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Order a, @NonNull Order b) {
+                    return Objects.equals(a.getStatus(),       b.getStatus())
+                            && Objects.equals(a.getServerId(),     b.getServerId())
+                            && Objects.equals(a.getErrorMessage(), b.getErrorMessage())
+                            && Objects.equals(a.getClientName(),   b.getClientName())
+                            && Objects.equals(a.getOrderDetail(),  b.getOrderDetail())
+                            && Objects.equals(a.getCreatedAt(),    b.getCreatedAt());
+                }
+            };
+
+    private final AsyncListDiffer<Order> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    private final ThumbnailCache      thumbnails;
     private final OnItemClickListener listener;
+    private final OnLoadMoreListener  loadMoreListener;
+
+    // Última lista enviada al differ; puede ir por delante de getCurrentList()
+    // mientras el diff se calcula, y las páginas y filas nuevas parten de ella
+    private List<Order> latest        = Collections.emptyList();
+    private boolean     latestHasMore = false;
+    private boolean     pagePending   = false;
+
+    private boolean hasMore = false;
+    private boolean loading = false;
+
+    public OrdersAdapter(ThumbnailCache thumbnails, OnItemClickListener listener,
+                         OnLoadMoreListener loadMoreListener) {
+        this.thumbnails       = thumbnails;
+        this.listener         = listener;
+        this.loadMoreListener = loadMoreListener;
+    }
+
+    /** Reemplaza el contenido con la primera página (conserva ViewHolders y scroll). */
+    public void setOrders(List<Order> firstPage, boolean hasMore) {
+        prefetchThumbnails(firstPage);
+        submit(new ArrayList<>(firstPage), hasMore);
+    }
 
-    public OrdersAdapter(List<Order> orders, OnItemClickListener listener) {
-        this.orders   = orders;
-        this.listener = listener;
+    /** Agrega una página al final de la lista. */
+    public void appendOrders(List<Order> page, boolean hasMore) {
+        prefetchThumbnails(page);
+        List<Order> next = new ArrayList<>(latest);
+        next.addAll(page);
+        submit(next, hasMore);
+    }
+
+    /** Reemplaza una sola fila (p. ej. cuando la sync cambia su estado). */
+    public void updateOrder(Order updated) {
+        for (int i = 0; i < latest.size(); i++) {
+            if (latest.get(i).getId() == updated.getId()) {
+                List<Order> next = new ArrayList<>(latest);
+                next.set(i, updated);
+                latest = next;
+                differ.submitList(next, this::onCommitted);
+                return;
+            }
+        }
+    }
+
+    private void prefetchThumbnails(List<Order> page) {
+        thumbnails.prefetch(page.subList(0, Math.min(THUMB_PREFETCH, page.size())));
+    }
+
+    private void submit(List<Order> list, boolean more) {
+        latest        = list;
+        latestHasMore = more;
+        pagePending   = true;
+        differ.submitList(list, this::onCommitted);
+    }
+
+    /**
+     * Fin de un diff. Un envío posterior descarta el diff pendiente y su
+     * callback, así que cada envío pasa por aquí: el que llega a aplicarse
+     * contiene todas las páginas recibidas. "loading" se libera recién
+     * entonces, para no pedir dos veces la misma página.
+     */
+    private void onCommitted() {
+        if (!pagePending) return;
+        pagePending = false;
+        hasMore     = latestHasMore;
+        loading     = false;
     }
 
     @NonNull
@@ -42,19 +149,28 @@ public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewH
 
     @Override
     public void onBindViewHolder(@NonNull OrderViewHolder holder, int position) {
+        List<Order> orders = differ.getCurrentList();
         Order order = orders.get(position);
-        holder.bind(order, listener);
+        holder.bind(order, listener, thumbnails);
+
+        // Cerca del final: pedir la siguiente página una sola vez
+        if (hasMore && !loading && position >= orders.size() - PREFETCH_DISTANCE) {
+            loading = true;
+            Order last = orders.get(orders.size() - 1);
+            holder.itemView.post(() -> loadMoreListener.onLoadMore(last));
+        }
     }
 
     @Override
     public int getItemCount() {
-        return orders.size();
+        return differ.getCurrentList().size();
     }
 
     // ── ViewHolder ────────────────────────────────────────────────────────────
     static class OrderViewHolder extends RecyclerView.ViewHolder {
 
-        private final View     viewStatusBar;
+        private final View      viewStatusBar;
+        private final ImageView imgThumb;
         private final TextView tvClientName;
         private final TextView tvOrderDetail;
         private final TextView tvDateTime;
@@ -63,13 +179,15 @@ public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewH
         OrderViewHolder(@NonNull View itemView) {
             super(itemView);
             viewStatusBar = itemView.findViewById(R.id.viewStatusBar);
+            imgThumb      = itemView.findViewById(R.id.imgThumb);
             tvClientName  = itemView.findViewById(R.id.tvClientName);
             tvOrderDetail = itemView.findViewById(R.id.tvOrderDetail);
             tvDateTime    = itemView.findViewById(R.id.tvDateTime);
             tvStatus      = itemView.findViewById(R.id.tvStatus);
         }
 
-        void bind(Order order, OnItemClickListener listener) {
+        void bind(Order order, OnItemClickListener listener, ThumbnailCache thumbnails) {
+            thumbnails.load(order, imgThumb);
             tvClientName.setText(order.getClientName());
             tvOrderDetail.setText(order.getOrderDetail());
             tvDateTime.setText("🕒 " + (order.getCreatedAt() != null ? order.getCreatedAt() : "Sin fecha"));
@@ -98,4 +216,4 @@ public class OrdersAdapter extends RecyclerView.Adapter<OrdersAdapter.OrderViewH
             itemView.setOnClickListener(v -> listener.onItemClick(order));
         }
     }
-}
\ No newline at end of file
+}
@@ -5,21 +5,33 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.venegas.pedidos.models.Order;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * DatabaseHelper — gestiona la base de datos SQLite local.
  * Tabla: orders  — almacena todos los pedidos con su estado de sincronización.
+ *
+ * La conexión es de larga vida: se abre una vez y nunca se cierra por llamada.
+ * Con WAL activado SQLite mantiene un pool de conexiones de lectura y una
+ * única de escritura, así que lecturas de la UI y escrituras de la sync no
+ * se bloquean entre sí.
  */
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     // ── Versión y nombre de la DB ────────────────────────────────────────────
     private static final String DB_NAME    = "pedidos.db";
-    private static final int    DB_VERSION = 1;
+    private static final int    DB_VERSION = 10;
 
     // ── Tabla y columnas ─────────────────────────────────────────────────────
     public static final String TABLE_ORDERS       = "orders";
@@ -36,6 +48,79 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public static final String COL_ERROR_MSG      = "error_message";
     public static final String COL_CREATED_AT     = "created_at";
     public static final String COL_SERVER_ID      = "server_id";
+    public static final String COL_PHOTO_COMPRESSED = "photo_compressed_path";   // v4
+    public static final String COL_ERROR_TYPE     = "error_type";                 // v6
+    public static final String COL_ATTEMPT_COUNT  = "attempt_count";              // v6
+    public static final String COL_NEXT_RETRY_AT  = "next_retry_at";              // v6
+    public static final String COL_IDEMPOTENCY_KEY = "idempotency_key";           // v7
+    public static final String COL_SERVER_STATUS  = "server_status";              // v10
+    public static final String COL_SERVER_UPDATED_AT = "server_updated_at";       // v10
+
+    // ── Índices (v2) ─────────────────────────────────────────────────────────
+    public static final String IDX_STATUS         = "idx_orders_status";
+    public static final String IDX_CREATED_AT     = "idx_orders_created_at";
+    public static final String IDX_PENDING        = "idx_orders_pending";
+    public static final String IDX_RETRY          = "idx_orders_retry";           // v6
+    public static final String IDX_IDEMPOTENCY    = "idx_orders_idempotency";     // v7
+    public static final String IDX_STATUS_CREATED  = "idx_orders_status_created";  // v9
+    public static final String IDX_PAYMENT_CREATED = "idx_orders_payment_created"; // v9
+    public static final String IDX_SERVER_ID       = "idx_orders_server_id";       // v10
+
+    // ── Contadores por estado (v3) ───────────────────────────────────────────
+    public static final String TABLE_STATUS_COUNTS = "order_status_counts";
+    public static final String COL_COUNT_STATUS    = "status";
+    public static final String COL_COUNT_TOTAL     = "total";
+
+    // ── Subidas de fotos por fragmentos (v5) ─────────────────────────────────
+    public static final String TABLE_PHOTO_UPLOADS  = "photo_uploads";
+    public static final String COL_UP_ORDER_ID      = "order_id";
+    public static final String COL_UP_UPLOAD_ID     = "upload_id";
+    public static final String COL_UP_FILE_PATH     = "file_path";
+    public static final String COL_UP_FILE_SIZE     = "file_size";
+    public static final String COL_UP_OFFSET        = "confirmed_offset";
+
+    // ── Búsqueda de texto completo (v8) ──────────────────────────────────────
+    public static final String TABLE_ORDERS_FTS     = "orders_fts";
+
+    // Columnas indexadas; mismo orden en la tabla FTS y en los triggers
+    private static final String FTS_COLUMNS = COL_CLIENT_NAME + ", " + COL_CLIENT_PHONE + ", "
+            + COL_CLIENT_ADDRESS + ", " + COL_ORDER_DETAIL;
+
+    /** Progreso persistido de la subida de una foto. */
+    public static class PhotoUpload {
+        public long   orderId;
+        public String uploadId;
+        public String filePath;
+        public long   fileSize;
+        public long   confirmedOffset;
+    }
+
+    /** Totales de pedidos por estado para la cabecera de MainActivity. */
+    public static class StatusCounts {
+        public int pending;
+        public int synced;
+        public int error;
+    }
+
+    /**
+     * Cambio de un pedido informado por el servidor (orders/changes).
+     * Los campos de texto en null no cambiaron y se conservan.
+     */
+    public static class ServerChange {
+        public String serverId;
+        public String status;        // estado en el servidor (entregado, cancelado...)
+        public String updatedAt;     // marca del servidor; ordena cambios repetidos
+        public String clientName;
+        public String clientPhone;
+        public String clientAddress;
+        public String orderDetail;
+        public String paymentType;
+
+        boolean hasContent() {
+            return clientName != null || clientPhone != null || clientAddress != null
+                    || orderDetail != null || paymentType != null;
+        }
+    }
 
     // ── Singleton ────────────────────────────────────────────────────────────
     private static DatabaseHelper instance;
@@ -48,10 +133,19 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     }
 
     private DatabaseHelper(Context context) {
-        super(context, DB_NAME, null, DB_VERSION);
+        this(context, DB_NAME);
+    }
+
+    /** Base con otro nombre de archivo; los tests instrumentados no tocan pedidos.db. */
+    @VisibleForTesting
+    public DatabaseHelper(Context context, String name) {
+        super(context, name, null, DB_VERSION);
+        setWriteAheadLoggingEnabled(true);
     }
 
     // ── Creación de tablas ───────────────────────────────────────────────────
+
+    /** Crea el esquema v1 y le aplica todas las migraciones hasta DB_VERSION. */
     @Override
     public void onCreate(SQLiteDatabase db) {
         String createOrders = "CREATE TABLE " + TABLE_ORDERS + " ("
@@ -70,12 +164,212 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + COL_SERVER_ID      + " TEXT"
                 + ");";
         db.execSQL(createOrders);
+        applyMigrations(db, 1, DB_VERSION);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ORDERS);
-        onCreate(db);
+        applyMigrations(db, oldVersion, newVersion);
+    }
+
+    // ── Migraciones ──────────────────────────────────────────────────────────
+
+    /**
+     * Aplica en orden cada migración de (from, to].
+     * Las migraciones son incrementales y nunca borran datos: un pedido sin
+     * sincronizar debe sobrevivir a cualquier actualización de la app.
+     * SQLiteOpenHelper ya ejecuta todo dentro de una transacción.
+     */
+    private void applyMigrations(SQLiteDatabase db, int from, int to) {
+        for (int version = from + 1; version <= to; version++) {
+            switch (version) {
+                case 2: migrateToV2(db); break;
+                case 3: migrateToV3(db); break;
+                case 4: migrateToV4(db); break;
+                case 5: migrateToV5(db); break;
+                case 6: migrateToV6(db); break;
+                case 7: migrateToV7(db); break;
+                case 8: migrateToV8(db); break;
+                case 9: migrateToV9(db); break;
+                case 10: migrateToV10(db); break;
+                default:
+                    throw new IllegalStateException("No existe migración para la versión " + version);
+            }
+        }
+    }
+
+    /**
+     * v2: índices para las consultas por estado y fecha.
+     * El índice de status ya queda ordenado por id (rowid), así que sirve
+     * también para "WHERE status=? ORDER BY id". El índice parcial solo
+     * contiene las filas PENDING y se mantiene pequeño aunque crezca el historial.
+     */
+    private void migrateToV2(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_STATUS
+                + " ON " + TABLE_ORDERS + "(" + COL_STATUS + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_CREATED_AT
+                + " ON " + TABLE_ORDERS + "(" + COL_CREATED_AT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_PENDING
+                + " ON " + TABLE_ORDERS + "(" + COL_ID + ")"
+                + " WHERE " + COL_STATUS + "='" + Order.STATUS_PENDING + "'");
+    }
+
+    /**
+     * v3: tabla de contadores por estado mantenida por triggers.
+     * Los triggers corren dentro de la misma transacción que el INSERT/UPDATE
+     * del pedido, así que los totales nunca se desincronizan y leerlos es O(1).
+     */
+    private void migrateToV3(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_STATUS_COUNTS + " ("
+                + COL_COUNT_STATUS + " TEXT PRIMARY KEY, "
+                + COL_COUNT_TOTAL  + " INTEGER NOT NULL DEFAULT 0"
+                + ");");
+
+        // Carga inicial a partir de los pedidos existentes
+        db.execSQL("INSERT OR REPLACE INTO " + TABLE_STATUS_COUNTS
+                + " (" + COL_COUNT_STATUS + ", " + COL_COUNT_TOTAL + ")"
+                + " SELECT " + COL_STATUS + ", COUNT(*) FROM " + TABLE_ORDERS
+                + " GROUP BY " + COL_STATUS);
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_orders_count_insert"
+                + " AFTER INSERT ON " + TABLE_ORDERS + " BEGIN "
+                + countDelta("NEW", "+ 1")
+                + " END;");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_orders_count_update"
+                + " AFTER UPDATE OF " + COL_STATUS + " ON " + TABLE_ORDERS
+                + " WHEN OLD." + COL_STATUS + " IS NOT NEW." + COL_STATUS + " BEGIN "
+                + countDelta("OLD", "- 1")
+                + countDelta("NEW", "+ 1")
+                + " END;");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_orders_count_delete"
+                + " AFTER DELETE ON " + TABLE_ORDERS + " BEGIN "
+                + countDelta("OLD", "- 1")
+                + " END;");
+    }
+
+    /** Sentencias de trigger que suman o restan 1 al contador del estado de la fila. */
+    private static String countDelta(String row, String delta) {
+        return "INSERT OR IGNORE INTO " + TABLE_STATUS_COUNTS
+                + " (" + COL_COUNT_STATUS + ", " + COL_COUNT_TOTAL + ")"
+                + " VALUES (" + row + "." + COL_STATUS + ", 0); "
+                + "UPDATE " + TABLE_STATUS_COUNTS
+                + " SET " + COL_COUNT_TOTAL + " = " + COL_COUNT_TOTAL + " " + delta
+                + " WHERE " + COL_COUNT_STATUS + " = " + row + "." + COL_STATUS + "; ";
+    }
+
+    /** v4: ruta de la foto comprimida que se sube en lugar del original. */
+    private void migrateToV4(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_ORDERS
+                + " ADD COLUMN " + COL_PHOTO_COMPRESSED + " TEXT");
+    }
+
+    /** v5: offset confirmado de cada subida de foto, para reanudarla tras un corte. */
+    private void migrateToV5(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_PHOTO_UPLOADS + " ("
+                + COL_UP_ORDER_ID  + " INTEGER PRIMARY KEY, "
+                + COL_UP_UPLOAD_ID + " TEXT NOT NULL, "
+                + COL_UP_FILE_PATH + " TEXT NOT NULL, "
+                + COL_UP_FILE_SIZE + " INTEGER NOT NULL, "
+                + COL_UP_OFFSET    + " INTEGER NOT NULL DEFAULT 0"
+                + ");");
+    }
+
+    /**
+     * v6: clasificación del error, número de intentos y próximo reintento.
+     * Los errores previos quedan sin tipo y sin reintento programado.
+     */
+    private void migrateToV6(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_ORDERS + " ADD COLUMN " + COL_ERROR_TYPE + " TEXT");
+        db.execSQL("ALTER TABLE " + TABLE_ORDERS + " ADD COLUMN " + COL_ATTEMPT_COUNT
+                + " INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("ALTER TABLE " + TABLE_ORDERS + " ADD COLUMN " + COL_NEXT_RETRY_AT + " INTEGER");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_RETRY
+                + " ON " + TABLE_ORDERS + "(" + COL_NEXT_RETRY_AT + ")"
+                + " WHERE " + COL_STATUS + "='" + Order.STATUS_ERROR + "'");
+    }
+
+    /**
+     * v7: clave de idempotencia por pedido. A los pedidos existentes se les
+     * asigna una clave aleatoria (128 bits) para que también se reintenten seguros.
+     */
+    private void migrateToV7(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_ORDERS + " ADD COLUMN " + COL_IDEMPOTENCY_KEY + " TEXT");
+        db.execSQL("UPDATE " + TABLE_ORDERS + " SET " + COL_IDEMPOTENCY_KEY
+                + " = lower(hex(randomblob(16))) WHERE " + COL_IDEMPOTENCY_KEY + " IS NULL");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + IDX_IDEMPOTENCY
+                + " ON " + TABLE_ORDERS + "(" + COL_IDEMPOTENCY_KEY + ")");
+    }
+
+    /**
+     * v8: índice FTS4 sobre nombre, teléfono, dirección y detalle.
+     * Tabla de contenido externo (content=orders): no duplica el texto, solo
+     * guarda el índice invertido. Los triggers lo mantienen al día dentro de
+     * la misma transacción; la fila vieja se borra del índice ANTES del
+     * UPDATE/DELETE porque FTS4 lee su texto desde orders.
+     * unicode61 con remove_diacritics: "jose" encuentra "José".
+     */
+    private void migrateToV8(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_ORDERS_FTS
+                + " USING fts4(content=\"" + TABLE_ORDERS + "\", " + FTS_COLUMNS
+                + ", tokenize=unicode61 \"remove_diacritics=1\")");
+
+        // Indexar los pedidos existentes
+        db.execSQL("INSERT INTO " + TABLE_ORDERS_FTS + "(" + TABLE_ORDERS_FTS + ") VALUES('rebuild')");
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_orders_fts_bu"
+                + " BEFORE UPDATE OF " + FTS_COLUMNS + " ON " + TABLE_ORDERS + " BEGIN "
+                + ftsDelete() + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_orders_fts_bd"
+                + " BEFORE DELETE ON " + TABLE_ORDERS + " BEGIN "
+                + ftsDelete() + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_orders_fts_au"
+                + " AFTER UPDATE OF " + FTS_COLUMNS + " ON " + TABLE_ORDERS + " BEGIN "
+                + ftsInsert() + " END;");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_orders_fts_ai"
+                + " AFTER INSERT ON " + TABLE_ORDERS + " BEGIN "
+                + ftsInsert() + " END;");
+    }
+
+    private static String ftsDelete() {
+        return "DELETE FROM " + TABLE_ORDERS_FTS + " WHERE docid = OLD." + COL_ID + "; ";
+    }
+
+    private static String ftsInsert() {
+        return "INSERT INTO " + TABLE_ORDERS_FTS + "(docid, " + FTS_COLUMNS + ") VALUES (NEW." + COL_ID
+                + ", NEW." + COL_CLIENT_NAME + ", NEW." + COL_CLIENT_PHONE
+                + ", NEW." + COL_CLIENT_ADDRESS + ", NEW." + COL_ORDER_DETAIL + "); ";
+    }
+
+    /**
+     * v9: filtros de la lista. Normaliza created_at al formato ordenable
+     * "yyyy-MM-dd HH:mm:ss" (las fechas que SQLite no entiende quedan igual)
+     * y crea índices compuestos para filtrar por estado o tipo de pago y,
+     * dentro de eso, recorrer por fecha sin ordenar en memoria.
+     */
+    private void migrateToV9(SQLiteDatabase db) {
+        String normalized = "strftime('%Y-%m-%d %H:%M:%S', " + COL_CREATED_AT + ")";
+        db.execSQL("UPDATE " + TABLE_ORDERS + " SET " + COL_CREATED_AT + " = " + normalized
+                + " WHERE " + normalized + " IS NOT NULL"
+                + " AND " + COL_CREATED_AT + " <> " + normalized);
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_STATUS_CREATED
+                + " ON " + TABLE_ORDERS + "(" + COL_STATUS + ", " + COL_CREATED_AT + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_PAYMENT_CREATED
+                + " ON " + TABLE_ORDERS + "(" + COL_PAYMENT_TYPE + ", " + COL_CREATED_AT + ")");
+    }
+
+    /**
+     * v10: estado del pedido en el servidor, traído por la sincronización
+     * incremental. Índice parcial por server_id (solo pedidos ya subidos)
+     * para aplicar cada cambio sin recorrer la tabla.
+     */
+    private void migrateToV10(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_ORDERS + " ADD COLUMN " + COL_SERVER_STATUS + " TEXT");
+        db.execSQL("ALTER TABLE " + TABLE_ORDERS + " ADD COLUMN " + COL_SERVER_UPDATED_AT + " TEXT");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_SERVER_ID
+                + " ON " + TABLE_ORDERS + "(" + COL_SERVER_ID + ")"
+                + " WHERE " + COL_SERVER_ID + " IS NOT NULL");
     }
 
     // ── CRUD ─────────────────────────────────────────────────────────────────
@@ -85,15 +379,18 @@ public class DatabaseHelper extends SQLiteOpenHelper {
      * @return ID generado o -1 si hubo error.
      */
     public long insertOrder(Order order) {
+        if (order.getIdempotencyKey() == null) {
+            order.setIdempotencyKey(Order.newIdempotencyKey());
+        }
         SQLiteDatabase db = getWritableDatabase();
         ContentValues cv = orderToContentValues(order);
         long id = db.insert(TABLE_ORDERS, null, cv);
-        db.close();
         return id;
     }
 
     /**
      * Actualiza el estado de sincronización de un pedido.
+     * Cancela cualquier reintento programado (ver updateOrderFailure).
      */
     public void updateOrderStatus(long id, String status, String errorMessage, String serverId) {
         SQLiteDatabase db = getWritableDatabase();
@@ -101,8 +398,69 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         cv.put(COL_STATUS,    status);
         cv.put(COL_ERROR_MSG, errorMessage);
         cv.put(COL_SERVER_ID, serverId);
+        cv.putNull(COL_ERROR_TYPE);
+        cv.putNull(COL_NEXT_RETRY_AT);
         db.update(TABLE_ORDERS, cv, COL_ID + "=?", new String[]{String.valueOf(id)});
-        db.close();
+    }
+
+    /**
+     * Aplica una página de cambios del servidor en una sola transacción,
+     * buscando cada pedido por server_id. Un cambio más viejo que el ya
+     * aplicado (mismo updatedAt o anterior) se ignora, así que repetir una
+     * página es inofensivo. Los pedidos que no existen en este dispositivo
+     * se ignoran. Los cambios solo de estado no tocan las columnas del
+     * índice FTS, para no reindexar el texto.
+     * @return cuántos pedidos locales cambiaron.
+     */
+    public int applyServerChanges(List<ServerChange> changes) {
+        SQLiteDatabase db = getWritableDatabase();
+        String guard = " WHERE " + COL_SERVER_ID + " = ? AND (" + COL_SERVER_UPDATED_AT + " IS NULL OR "
+                + COL_SERVER_UPDATED_AT + " < ?)";
+        SQLiteStatement statusOnly = db.compileStatement("UPDATE " + TABLE_ORDERS
+                + " SET " + COL_SERVER_STATUS + " = coalesce(?, " + COL_SERVER_STATUS + "), "
+                + COL_SERVER_UPDATED_AT + " = ?" + guard);
+        SQLiteStatement full = db.compileStatement("UPDATE " + TABLE_ORDERS
+                + " SET " + COL_SERVER_STATUS + " = coalesce(?, " + COL_SERVER_STATUS + "), "
+                + COL_SERVER_UPDATED_AT + " = ?, "
+                + COL_CLIENT_NAME    + " = coalesce(?, " + COL_CLIENT_NAME + "), "
+                + COL_CLIENT_PHONE   + " = coalesce(?, " + COL_CLIENT_PHONE + "), "
+                + COL_CLIENT_ADDRESS + " = coalesce(?, " + COL_CLIENT_ADDRESS + "), "
+                + COL_ORDER_DETAIL   + " = coalesce(?, " + COL_ORDER_DETAIL + "), "
+                + COL_PAYMENT_TYPE   + " = coalesce(?, " + COL_PAYMENT_TYPE + ")" + guard);
+
+        int updated = 0;
+        db.beginTransactionNonExclusive();
+        try {
+            for (ServerChange c : changes) {
+                if (c.serverId == null || c.updatedAt == null) continue;
+                SQLiteStatement stmt = c.hasContent() ? full : statusOnly;
+                stmt.clearBindings();
+                int i = 1;
+                bindOrNull(stmt, i++, c.status);
+                stmt.bindString(i++, c.updatedAt);
+                if (stmt == full) {
+                    bindOrNull(stmt, i++, c.clientName);
+                    bindOrNull(stmt, i++, c.clientPhone);
+                    bindOrNull(stmt, i++, c.clientAddress);
+                    bindOrNull(stmt, i++, c.orderDetail);
+                    bindOrNull(stmt, i++, c.paymentType);
+                }
+                stmt.bindString(i++, c.serverId);
+                stmt.bindString(i,   c.updatedAt);
+                updated += stmt.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            statusOnly.close();
+            full.close();
+        }
+        return updated;
+    }
+
+    private static void bindOrNull(SQLiteStatement stmt, int index, String value) {
+        if (value != null) stmt.bindString(index, value);
+        else               stmt.bindNull(index);
     }
 
     /**
@@ -119,18 +477,152 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             } while (cursor.moveToNext());
         }
         cursor.close();
-        db.close();
         return list;
     }
 
+    /**
+     * Registra un intento fallido: estado ERROR, tipo de error, intentos
+     * acumulados y, si es reintentable, cuándo volver a intentarlo (0 = nunca).
+     */
+    public void updateOrderFailure(long id, String errorType, String errorMessage,
+                                   int attemptCount, long nextRetryAt) {
+        SQLiteDatabase db = getWritableDatabase();
+        ContentValues cv = new ContentValues();
+        cv.put(COL_STATUS,        Order.STATUS_ERROR);
+        cv.put(COL_ERROR_TYPE,    errorType);
+        cv.put(COL_ERROR_MSG,     errorMessage);
+        cv.put(COL_ATTEMPT_COUNT, attemptCount);
+        if (nextRetryAt > 0) cv.put(COL_NEXT_RETRY_AT, nextRetryAt);
+        else                 cv.putNull(COL_NEXT_RETRY_AT);
+        db.update(TABLE_ORDERS, cv, COL_ID + "=?", new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * Devuelve una página de pedidos filtrada, del más reciente al más
+     * antiguo (created_at DESC, id DESC), paginada por keyset.
+     * El keyset es un rango sobre el índice de created_at (las filas con el
+     * mismo created_at se filtran por id), así que cada página cuesta lo
+     * mismo sin importar qué tan profundo se esté. Los created_at NULL van al
+     * final y se leen aparte, para no romper el rango con un OR.
+     * @param filter criterios; null o vacío = todos.
+     * @param after  último pedido de la página anterior; null para la primera.
+     * @param limit  tamaño máximo de la página.
+     */
+    public List<Order> getOrdersPage(OrderFilter filter, Order after, int limit) {
+        List<Order> list = new ArrayList<>();
+        if (after == null) {
+            queryPage(list, filter, null, null, limit);
+        } else if (after.getCreatedAt() != null) {
+            String createdAt = after.getCreatedAt();
+            queryPage(list, filter,
+                    COL_CREATED_AT + " <= ? AND (" + COL_CREATED_AT + " < ? OR " + COL_ID + " < ?)",
+                    new String[]{createdAt, createdAt, String.valueOf(after.getId())}, limit);
+            // Se acabaron las fechas: seguir con los pedidos sin created_at
+            if (list.size() < limit) {
+                queryPage(list, filter, COL_CREATED_AT + " IS NULL", null, limit - list.size());
+            }
+        } else {
+            queryPage(list, filter, COL_CREATED_AT + " IS NULL AND " + COL_ID + " < ?",
+                    new String[]{String.valueOf(after.getId())}, limit);
+        }
+        return list;
+    }
+
+    /** Agrega a list hasta limit pedidos que cumplen filter y keyset (puede ser null). */
+    private void queryPage(List<Order> list, OrderFilter filter,
+                           String keyset, String[] keysetArgs, int limit) {
+        StringBuilder where = new StringBuilder();
+        List<String>  args  = new ArrayList<>();
+        if (filter != null) filter.appendTo(where, args);
+        if (keyset != null) {
+            if (where.length() > 0) where.append(" AND ");
+            where.append(keyset);
+            if (keysetArgs != null) Collections.addAll(args, keysetArgs);
+        }
+
+        Cursor cursor = getReadableDatabase().query(TABLE_ORDERS, null,
+                where.length() > 0 ? where.toString() : null,
+                args.toArray(new String[0]),
+                null, null, COL_CREATED_AT + " DESC, " + COL_ID + " DESC", String.valueOf(limit));
+        while (cursor.moveToNext()) {
+            list.add(cursorToOrder(cursor));
+        }
+        cursor.close();
+    }
+
+    /**
+     * Busca pedidos por texto completo. Cada palabra de la consulta se busca
+     * como prefijo ("ped" encuentra "Pedro") y todas deben aparecer.
+     * Primero los que coinciden en el nombre del cliente, luego los más recientes.
+     * @param filter criterios de la lista que también se aplican; puede ser null.
+     * @return lista vacía si la consulta no tiene palabras buscables.
+     */
+    public List<Order> searchOrders(String query, OrderFilter filter, int limit) {
+        List<Order> list = new ArrayList<>();
+        List<String> terms = searchTerms(query);
+        if (terms.isEmpty()) return list;
+
+        StringBuilder match     = new StringBuilder();
+        StringBuilder nameMatch = new StringBuilder();
+        for (String term : terms) {
+            if (match.length() > 0) {
+                match.append(' ');
+                nameMatch.append(" OR ");
+            }
+            match.append(term).append('*');
+            nameMatch.append(COL_CLIENT_NAME).append(':').append(term).append('*');
+        }
+
+        StringBuilder where = new StringBuilder();
+        List<String>  args  = new ArrayList<>();
+        args.add(match.toString());
+        if (filter != null) filter.appendTo(where, args);
+        args.add(nameMatch.toString());
+
+        String sql = "SELECT o.* FROM " + TABLE_ORDERS + " o"
+                + " WHERE o." + COL_ID + " IN (SELECT docid FROM " + TABLE_ORDERS_FTS
+                + " WHERE " + TABLE_ORDERS_FTS + " MATCH ?)"
+                + (where.length() > 0 ? " AND " + where : "")
+                + " ORDER BY o." + COL_ID + " IN (SELECT docid FROM " + TABLE_ORDERS_FTS
+                + " WHERE " + TABLE_ORDERS_FTS + " MATCH ?) DESC, o." + COL_ID + " DESC"
+                + " LIMIT " + limit;
+        Cursor cursor = getReadableDatabase().rawQuery(sql, args.toArray(new String[0]));
+        while (cursor.moveToNext()) {
+            list.add(cursorToOrder(cursor));
+        }
+        cursor.close();
+        return list;
+    }
+
+    /**
+     * Palabras de la consulta sin la sintaxis de FTS (comillas, *, -, :, OR...),
+     * para que lo que escribe el vendedor nunca produzca un MATCH inválido.
+     */
+    private static List<String> searchTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) return terms;
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            String upper = word.toUpperCase(Locale.ROOT);
+            if (upper.equals("OR") || upper.equals("AND") || upper.equals("NOT")
+                    || upper.equals("NEAR")) {
+                word = word.toLowerCase(Locale.ROOT);
+            }
+            terms.add(word);
+        }
+        return terms;
+    }
+
     /**
      * Devuelve solo los pedidos PENDING (para sincronizar).
+     * El estado va como literal (no como ?) para que SQLite pueda usar
+     * el índice parcial idx_orders_pending.
      */
     public List<Order> getPendingOrders() {
         List<Order> list = new ArrayList<>();
         SQLiteDatabase db = getReadableDatabase();
         Cursor cursor = db.query(TABLE_ORDERS, null,
-                COL_STATUS + "=?", new String[]{Order.STATUS_PENDING},
+                COL_STATUS + "='" + Order.STATUS_PENDING + "'", null,
                 null, null, COL_ID + " ASC");
         if (cursor.moveToFirst()) {
             do {
@@ -138,10 +630,85 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             } while (cursor.moveToNext());
         }
         cursor.close();
-        db.close();
         return list;
     }
 
+    /**
+     * Pedidos a subir en una sincronización: todos los PENDING más los ERROR
+     * reintentables cuyo reintento ya venció (o todos los reintentables si
+     * includeNotDue, para la sync manual).
+     */
+    public List<Order> getSyncableOrders(long now, boolean includeNotDue) {
+        List<Order> list = new ArrayList<>();
+        SQLiteDatabase db = getReadableDatabase();
+        String retryDue = includeNotDue
+                ? COL_NEXT_RETRY_AT + " IS NOT NULL"
+                : COL_NEXT_RETRY_AT + "<=" + now;
+        Cursor cursor = db.query(TABLE_ORDERS, null,
+                COL_STATUS + "='" + Order.STATUS_PENDING + "'"
+                        + " OR (" + COL_STATUS + "='" + Order.STATUS_ERROR + "' AND " + retryDue + ")",
+                null, null, null, COL_ID + " ASC");
+        while (cursor.moveToNext()) {
+            list.add(cursorToOrder(cursor));
+        }
+        cursor.close();
+        return list;
+    }
+
+    /**
+     * Pedidos SYNCED con foto, del más antiguo al más reciente. Solo trae
+     * id, photo_path y photo_compressed_path (es para mantenimiento de archivos).
+     */
+    public List<Order> getSyncedPhotoOrders() {
+        List<Order> list = new ArrayList<>();
+        Cursor cursor = getReadableDatabase().query(TABLE_ORDERS,
+                new String[]{COL_ID, COL_PHOTO_PATH, COL_PHOTO_COMPRESSED},
+                COL_STATUS + "='" + Order.STATUS_SYNCED + "' AND " + COL_PHOTO_PATH + " IS NOT NULL",
+                null, null, null, COL_ID + " ASC");
+        while (cursor.moveToNext()) {
+            Order o = new Order();
+            o.setId(cursor.getLong(0));
+            o.setPhotoPath(cursor.getString(1));
+            o.setCompressedPhotoPath(cursor.getString(2));
+            list.add(o);
+        }
+        cursor.close();
+        return list;
+    }
+
+    /** Rutas de foto (original y comprimida) referenciadas por algún pedido. */
+    public Set<String> getReferencedPhotoPaths() {
+        Set<String> paths = new HashSet<>();
+        Cursor cursor = getReadableDatabase().query(TABLE_ORDERS,
+                new String[]{COL_PHOTO_PATH, COL_PHOTO_COMPRESSED},
+                COL_PHOTO_PATH + " IS NOT NULL OR " + COL_PHOTO_COMPRESSED + " IS NOT NULL",
+                null, null, null, null);
+        while (cursor.moveToNext()) {
+            if (!cursor.isNull(0)) paths.add(cursor.getString(0));
+            if (!cursor.isNull(1)) paths.add(cursor.getString(1));
+        }
+        cursor.close();
+        return paths;
+    }
+
+    /**
+     * Próximo reintento programado (epoch ms), o 0 si no hay ninguno.
+     * @param withoutPhoto solo pedidos sin foto: los que tienen foto se
+     *                     dejaron para el Wi-Fi y tienen su propio trabajo.
+     */
+    public long getNextRetryAt(boolean withoutPhoto) {
+        SQLiteDatabase db = getReadableDatabase();
+        String noPhoto = withoutPhoto
+                ? " AND " + COL_PHOTO_PATH + " IS NULL AND " + COL_PHOTO_COMPRESSED + " IS NULL"
+                : "";
+        Cursor cursor = db.rawQuery("SELECT MIN(" + COL_NEXT_RETRY_AT + ") FROM " + TABLE_ORDERS
+                + " WHERE " + COL_STATUS + "='" + Order.STATUS_ERROR + "'" + noPhoto, null);
+        long next = 0;
+        if (cursor.moveToFirst() && !cursor.isNull(0)) next = cursor.getLong(0);
+        cursor.close();
+        return next;
+    }
+
     /**
      * Devuelve un pedido por su ID local.
      */
@@ -155,7 +722,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             order = cursorToOrder(cursor);
         }
         cursor.close();
-        db.close();
         return order;
     }
 
@@ -170,10 +736,83 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         int count = 0;
         if (cursor.moveToFirst()) count = cursor.getInt(0);
         cursor.close();
-        db.close();
         return count;
     }
 
+    /**
+     * Cuenta los ERROR que se reintentan (los que tienen next_retry_at).
+     * Recorre solo el índice parcial de errores.
+     */
+    public int countRetryableErrors() {
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_ORDERS
+                + " WHERE " + COL_STATUS + "='" + Order.STATUS_ERROR + "'"
+                + " AND " + COL_NEXT_RETRY_AT + " IS NOT NULL", null);
+        int count = 0;
+        if (cursor.moveToFirst()) count = cursor.getInt(0);
+        cursor.close();
+        return count;
+    }
+
+    /**
+     * Devuelve los tres contadores de la cabecera en una sola lectura
+     * de la tabla de contadores (no recorre la tabla de pedidos).
+     */
+    public StatusCounts getStatusCounts() {
+        StatusCounts counts = new StatusCounts();
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.query(TABLE_STATUS_COUNTS,
+                new String[]{COL_COUNT_STATUS, COL_COUNT_TOTAL},
+                null, null, null, null, null);
+        while (cursor.moveToNext()) {
+            String status = cursor.getString(0);
+            int    total  = cursor.getInt(1);
+            if (Order.STATUS_PENDING.equals(status))     counts.pending = total;
+            else if (Order.STATUS_SYNCED.equals(status)) counts.synced  = total;
+            else if (Order.STATUS_ERROR.equals(status))  counts.error   = total;
+        }
+        cursor.close();
+        return counts;
+    }
+
+    // ── Subidas de fotos ─────────────────────────────────────────────────────
+
+    /** Devuelve el progreso guardado de la foto de un pedido, o null. */
+    public PhotoUpload getPhotoUpload(long orderId) {
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.query(TABLE_PHOTO_UPLOADS, null,
+                COL_UP_ORDER_ID + "=?", new String[]{String.valueOf(orderId)},
+                null, null, null);
+        PhotoUpload upload = null;
+        if (cursor.moveToFirst()) {
+            upload = new PhotoUpload();
+            upload.orderId         = orderId;
+            upload.uploadId        = cursor.getString(cursor.getColumnIndexOrThrow(COL_UP_UPLOAD_ID));
+            upload.filePath        = cursor.getString(cursor.getColumnIndexOrThrow(COL_UP_FILE_PATH));
+            upload.fileSize        = cursor.getLong(  cursor.getColumnIndexOrThrow(COL_UP_FILE_SIZE));
+            upload.confirmedOffset = cursor.getLong(  cursor.getColumnIndexOrThrow(COL_UP_OFFSET));
+        }
+        cursor.close();
+        return upload;
+    }
+
+    /** Guarda (o reemplaza) el offset confirmado de una subida. */
+    public void savePhotoUpload(PhotoUpload upload) {
+        SQLiteDatabase db = getWritableDatabase();
+        ContentValues cv = new ContentValues();
+        cv.put(COL_UP_ORDER_ID,  upload.orderId);
+        cv.put(COL_UP_UPLOAD_ID, upload.uploadId);
+        cv.put(COL_UP_FILE_PATH, upload.filePath);
+        cv.put(COL_UP_FILE_SIZE, upload.fileSize);
+        cv.put(COL_UP_OFFSET,    upload.confirmedOffset);
+        db.insertWithOnConflict(TABLE_PHOTO_UPLOADS, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    public void deletePhotoUpload(long orderId) {
+        getWritableDatabase().delete(TABLE_PHOTO_UPLOADS,
+                COL_UP_ORDER_ID + "=?", new String[]{String.valueOf(orderId)});
+    }
+
     // ── Conversores privados ─────────────────────────────────────────────────
 
     private ContentValues orderToContentValues(Order o) {
@@ -184,10 +823,14 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         cv.put(COL_ORDER_DETAIL,   o.getOrderDetail());
         cv.put(COL_PAYMENT_TYPE,   o.getPaymentType());
         cv.put(COL_PHOTO_PATH,     o.getPhotoPath());
+        cv.put(COL_PHOTO_COMPRESSED, o.getCompressedPhotoPath());
         cv.put(COL_LATITUDE,       o.getLatitude());
         cv.put(COL_LONGITUDE,      o.getLongitude());
         cv.put(COL_STATUS,         o.getStatus());
         cv.put(COL_ERROR_MSG,      o.getErrorMessage());
+        cv.put(COL_ERROR_TYPE,     o.getErrorType());
+        cv.put(COL_ATTEMPT_COUNT,  o.getAttemptCount());
+        cv.put(COL_IDEMPOTENCY_KEY, o.getIdempotencyKey());
         cv.put(COL_CREATED_AT,     o.getCreatedAt());
         cv.put(COL_SERVER_ID,      o.getServerId());
         return cv;
@@ -202,12 +845,18 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         o.setOrderDetail(  c.getString(c.getColumnIndexOrThrow(COL_ORDER_DETAIL)));
         o.setPaymentType(  c.getString(c.getColumnIndexOrThrow(COL_PAYMENT_TYPE)));
         o.setPhotoPath(    c.getString(c.getColumnIndexOrThrow(COL_PHOTO_PATH)));
+        o.setCompressedPhotoPath(c.getString(c.getColumnIndexOrThrow(COL_PHOTO_COMPRESSED)));
         o.setLatitude(     c.getDouble(c.getColumnIndexOrThrow(COL_LATITUDE)));
         o.setLongitude(    c.getDouble(c.getColumnIndexOrThrow(COL_LONGITUDE)));
         o.setStatus(       c.getString(c.getColumnIndexOrThrow(COL_STATUS)));
         o.setErrorMessage( c.getString(c.getColumnIndexOrThrow(COL_ERROR_MSG)));
+        o.setErrorType(    c.getString(c.getColumnIndexOrThrow(COL_ERROR_TYPE)));
+        o.setAttemptCount( c.getInt(   c.getColumnIndexOrThrow(COL_ATTEMPT_COUNT)));
+        o.setNextRetryAt(  c.getLong(  c.getColumnIndexOrThrow(COL_NEXT_RETRY_AT)));
         o.setCreatedAt(    c.getString(c.getColumnIndexOrThrow(COL_CREATED_AT)));
         o.setServerId(     c.getString(c.getColumnIndexOrThrow(COL_SERVER_ID)));
+        o.setIdempotencyKey(c.getString(c.getColumnIndexOrThrow(COL_IDEMPOTENCY_KEY)));
+        o.setServerStatus( c.getString(c.getColumnIndexOrThrow(COL_SERVER_STATUS)));
         return o;
     }
 }
\ No newline at end of file
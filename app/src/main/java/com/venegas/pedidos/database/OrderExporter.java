@@ -0,0 +1,197 @@
+package com.venegas.pedidos.database;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.utils.PhotoCompressor;
+
+import org.json.JSONObject;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * OrderExporter — exporta la tabla de pedidos para auditorías.
+ * Recorre un Cursor y escribe cada fila directamente al archivo (CSV o
+ * NDJSON), sin armar una lista en memoria: el consumo es constante sin
+ * importar cuántos pedidos haya. Opcionalmente empaqueta el archivo y las
+ * fotos en un ZIP. Bloquea el hilo actual; llamar desde un hilo de fondo.
+ */
+public class OrderExporter {
+
+    public enum Format {
+        CSV("csv", "text/csv"),
+        NDJSON("ndjson", "application/x-ndjson");
+
+        public final String extension;
+        public final String mimeType;
+
+        Format(String extension, String mimeType) {
+            this.extension = extension;
+            this.mimeType  = mimeType;
+        }
+    }
+
+    /** Columnas exportadas, en orden. */
+    private static final String[] COLUMNS = {
+            DatabaseHelper.COL_ID,
+            DatabaseHelper.COL_SERVER_ID,
+            DatabaseHelper.COL_STATUS,
+            DatabaseHelper.COL_CREATED_AT,
+            DatabaseHelper.COL_CLIENT_NAME,
+            DatabaseHelper.COL_CLIENT_PHONE,
+            DatabaseHelper.COL_CLIENT_ADDRESS,
+            DatabaseHelper.COL_ORDER_DETAIL,
+            DatabaseHelper.COL_PAYMENT_TYPE,
+            DatabaseHelper.COL_LATITUDE,
+            DatabaseHelper.COL_LONGITUDE,
+            DatabaseHelper.COL_ERROR_MSG,
+            DatabaseHelper.COL_IDEMPOTENCY_KEY,
+    };
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DatabaseHelper db;
+
+    public OrderExporter(DatabaseHelper db) {
+        this.db = db;
+    }
+
+    /** Exporta los pedidos a dst en el formato indicado. @return filas escritas. */
+    public int export(Format format, File dst) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(dst), BUFFER_SIZE)) {
+            return writeRows(format, out);
+        }
+    }
+
+    /**
+     * ZIP con "pedidos.&lt;ext&gt;" y la foto de cada pedido en "fotos/&lt;id&gt;.jpg".
+     * Las fotos van sin comprimir (STORED): ya son JPEG y deflate no las reduce.
+     * @return filas escritas.
+     */
+    public int exportZip(Format format, File dst) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(
+                new BufferedOutputStream(new FileOutputStream(dst), BUFFER_SIZE))) {
+            zip.putNextEntry(new ZipEntry("pedidos." + format.extension));
+            int rows = writeRows(format, zip);
+            zip.closeEntry();
+            writePhotos(zip);
+            return rows;
+        }
+    }
+
+    private int writeRows(Format format, OutputStream out) throws IOException {
+        // No se cierra el Writer: cerraría también el ZIP
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        int rows = 0;
+        try (Cursor c = db.getReadableDatabase().query(DatabaseHelper.TABLE_ORDERS, COLUMNS,
+                null, null, null, null, DatabaseHelper.COL_ID + " ASC")) {
+            if (format == Format.CSV) writeCsvHeader(writer);
+            while (c.moveToNext()) {
+                if (format == Format.CSV) writeCsvRow(writer, c);
+                else                      writeJsonRow(writer, c);
+                rows++;
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvHeader(Writer w) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) w.write(',');
+            w.write(COLUMNS[i]);
+        }
+        w.write("\r\n");
+    }
+
+    /** RFC 4180: comillas si el valor trae coma, comillas o saltos de línea. */
+    private static void writeCsvRow(Writer w, Cursor c) throws IOException {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) w.write(',');
+            if (c.isNull(i)) continue;
+            String v = c.getString(i);
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0
+                    || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+                w.write('"');
+                w.write(v.replace("\"", "\"\""));
+                w.write('"');
+            } else {
+                w.write(v);
+            }
+        }
+        w.write("\r\n");
+    }
+
+    /** Un objeto JSON por línea; números como números, NULL como null. */
+    private static void writeJsonRow(Writer w, Cursor c) throws IOException {
+        w.write('{');
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) w.write(',');
+            w.write(JSONObject.quote(COLUMNS[i]));
+            w.write(':');
+            switch (c.getType(i)) {
+                case Cursor.FIELD_TYPE_NULL:    w.write("null"); break;
+                case Cursor.FIELD_TYPE_INTEGER: w.write(Long.toString(c.getLong(i))); break;
+                case Cursor.FIELD_TYPE_FLOAT:   w.write(Double.toString(c.getDouble(i))); break;
+                default:                        w.write(JSONObject.quote(c.getString(i))); break;
+            }
+        }
+        w.write("}\n");
+    }
+
+    /** Segunda pasada (solo id y rutas) para agregar las fotos al ZIP. */
+    private void writePhotos(ZipOutputStream zip) throws IOException {
+        SQLiteDatabase sqlite = db.getReadableDatabase();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (Cursor c = sqlite.query(DatabaseHelper.TABLE_ORDERS,
+                new String[]{DatabaseHelper.COL_ID, DatabaseHelper.COL_PHOTO_PATH,
+                        DatabaseHelper.COL_PHOTO_COMPRESSED},
+                DatabaseHelper.COL_PHOTO_PATH + " IS NOT NULL", null, null, null,
+                DatabaseHelper.COL_ID + " ASC")) {
+            while (c.moveToNext()) {
+                Order o = new Order();
+                o.setId(c.getLong(0));
+                o.setPhotoPath(c.getString(1));
+                o.setCompressedPhotoPath(c.getString(2));
+                File photo = PhotoCompressor.bestAvailable(o);
+                if (photo == null) continue;
+
+                ZipEntry entry = new ZipEntry("fotos/" + o.getId() + ".jpg");
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(photo.length());
+                entry.setCompressedSize(photo.length());
+                entry.setCrc(crc32(photo, buffer));
+                zip.putNextEntry(entry);
+                try (InputStream in = new FileInputStream(photo)) {
+                    int n;
+                    while ((n = in.read(buffer)) != -1) zip.write(buffer, 0, n);
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+
+    /** STORED exige el CRC antes de escribir la entrada. */
+    private static long crc32(File file, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) crc.update(buffer, 0, n);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,59 @@
+package com.venegas.pedidos.database;
+
+import java.util.List;
+
+/**
+ * OrderFilter — criterios de la lista de pedidos, aplicados en SQL.
+ * Cada campo en null significa "sin filtro". Las fechas van en el formato
+ * de {@link com.venegas.pedidos.models.Order#CREATED_AT_PATTERN}:
+ * desde inclusivo, hasta exclusivo.
+ */
+public class OrderFilter {
+
+    public String status;        // Order.STATUS_*
+    public String paymentType;   // Order.PAYMENT_*
+    public String fromDate;      // created_at >= fromDate
+    public String toDate;        // created_at <  toDate
+
+    /** Copia con los mismos criterios. */
+    public OrderFilter copy() {
+        OrderFilter c = new OrderFilter();
+        c.status      = status;
+        c.paymentType = paymentType;
+        c.fromDate    = fromDate;
+        c.toDate      = toDate;
+        return c;
+    }
+
+    public boolean isEmpty() {
+        return status == null && paymentType == null && fromDate == null && toDate == null;
+    }
+
+    /**
+     * Agrega las condiciones a un WHERE en construcción (unidas con AND).
+     * El orden de las columnas coincide con los índices compuestos
+     * (status, created_at) y (payment_type, created_at).
+     */
+    void appendTo(StringBuilder where, List<String> args) {
+        if (status != null) {
+            and(where).append(DatabaseHelper.COL_STATUS).append(" = ?");
+            args.add(status);
+        }
+        if (paymentType != null) {
+            and(where).append(DatabaseHelper.COL_PAYMENT_TYPE).append(" = ?");
+            args.add(paymentType);
+        }
+        if (fromDate != null) {
+            and(where).append(DatabaseHelper.COL_CREATED_AT).append(" >= ?");
+            args.add(fromDate);
+        }
+        if (toDate != null) {
+            and(where).append(DatabaseHelper.COL_CREATED_AT).append(" < ?");
+            args.add(toDate);
+        }
+    }
+
+    private static StringBuilder and(StringBuilder where) {
+        return where.length() > 0 ? where.append(" AND ") : where;
+    }
+}
@@ -0,0 +1,364 @@
+package com.venegas.pedidos.database;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.venegas.pedidos.models.Order;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * OrderImporter — carga masiva de pedidos desde CSV o NDJSON (el mismo
+ * formato que produce {@link OrderExporter}; las columnas del CSV se
+ * toman del encabezado, en cualquier orden).
+ * Inserta con una sentencia compilada y una transacción por lote de
+ * {@link #BATCH_SIZE} filas: un fsync por lote en lugar de uno por pedido,
+ * y transacciones cortas para que la sync pueda escribir entre lotes.
+ * INSERT OR IGNORE sobre idempotency_key: reimportar el mismo archivo no
+ * duplica pedidos. Bloquea el hilo actual; llamar desde diskIO.
+ */
+public class OrderImporter {
+
+    public static final int BATCH_SIZE = 500;
+
+    // Errores detallados que se guardan en el resultado (el resto solo se cuenta)
+    private static final int MAX_ERROR_MESSAGES = 20;
+
+    /** Avance después de cada lote. Se llama en el hilo que importa. */
+    public interface ProgressListener {
+        void onProgress(int processed);
+    }
+
+    /** Resumen de la importación. */
+    public static class Result {
+        public int imported;     // filas insertadas
+        public int duplicates;   // ya existían (misma idempotency_key)
+        public int invalid;      // rechazadas por validación
+        public int pending;      // insertadas como PENDING (hay que subirlas)
+        public final List<String> errors = new ArrayList<>();
+
+        void reject(int line, String reason) {
+            invalid++;
+            if (errors.size() < MAX_ERROR_MESSAGES) errors.add("Línea " + line + ": " + reason);
+        }
+    }
+
+    private static final String[] INSERT_COLUMNS = {
+            DatabaseHelper.COL_CLIENT_NAME,
+            DatabaseHelper.COL_CLIENT_PHONE,
+            DatabaseHelper.COL_CLIENT_ADDRESS,
+            DatabaseHelper.COL_ORDER_DETAIL,
+            DatabaseHelper.COL_PAYMENT_TYPE,
+            DatabaseHelper.COL_LATITUDE,
+            DatabaseHelper.COL_LONGITUDE,
+            DatabaseHelper.COL_STATUS,
+            DatabaseHelper.COL_CREATED_AT,
+            DatabaseHelper.COL_SERVER_ID,
+            DatabaseHelper.COL_IDEMPOTENCY_KEY,
+    };
+
+    // Clave interna de una fila que no se pudo leer (la validación la rechaza)
+    private static final String PARSE_ERROR = "_parse_error";
+
+    private final DatabaseHelper db;
+
+    public OrderImporter(DatabaseHelper db) {
+        this.db = db;
+    }
+
+    /** Importa desde un stream; el formato se detecta por el primer carácter ('{' = NDJSON). */
+    public Result importFrom(InputStream in, ProgressListener progress) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        reader.mark(1);
+        int first = reader.read();
+        if (first == '\uFEFF') {         // BOM de Excel
+            reader.mark(1);
+            first = reader.read();
+        }
+        reader.reset();
+
+        RowSource rows = first == '{' ? new NdjsonSource(reader) : new CsvSource(reader);
+        return insertAll(rows, progress);
+    }
+
+    private Result insertAll(RowSource rows, ProgressListener progress) throws IOException {
+        Result result = new Result();
+        SQLiteDatabase sqlite = db.getWritableDatabase();
+
+        StringBuilder sql = new StringBuilder("INSERT OR IGNORE INTO ")
+                .append(DatabaseHelper.TABLE_ORDERS).append(" (");
+        for (int i = 0; i < INSERT_COLUMNS.length; i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(INSERT_COLUMNS[i]);
+        }
+        sql.append(") VALUES (");
+        for (int i = 0; i < INSERT_COLUMNS.length; i++) sql.append(i > 0 ? ", ?" : "?");
+        sql.append(")");
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat(Order.CREATED_AT_PATTERN, Locale.US);
+        dateFormat.setLenient(false);
+        String now = Order.formatCreatedAt(new Date());
+
+        SQLiteStatement insert = sqlite.compileStatement(sql.toString());
+        try {
+            Map<String, String> row;
+            int inBatch = 0, processed = 0;
+            sqlite.beginTransactionNonExclusive();
+            try {
+                while ((row = rows.next()) != null) {
+                    processed++;
+                    String error = bind(insert, row, dateFormat, now);
+                    if (error != null) {
+                        result.reject(rows.line(), error);
+                    } else if (insert.executeInsert() == -1) {
+                        result.duplicates++;
+                    } else {
+                        result.imported++;
+                        if (Order.STATUS_PENDING.equals(row.get(DatabaseHelper.COL_STATUS))) {
+                            result.pending++;
+                        }
+                    }
+
+                    if (++inBatch == BATCH_SIZE) {
+                        sqlite.setTransactionSuccessful();
+                        sqlite.endTransaction();
+                        if (progress != null) progress.onProgress(processed);
+                        sqlite.beginTransactionNonExclusive();
+                        inBatch = 0;
+                    }
+                }
+                sqlite.setTransactionSuccessful();
+            } finally {
+                sqlite.endTransaction();
+            }
+            if (progress != null) progress.onProgress(processed);
+        } finally {
+            insert.close();
+        }
+        return result;
+    }
+
+    /**
+     * Valida la fila y la enlaza a la sentencia. Normaliza row (estado final
+     * incluido). @return motivo del rechazo, o null si es válida.
+     */
+    private static String bind(SQLiteStatement st, Map<String, String> row,
+                               SimpleDateFormat dateFormat, String now) {
+        if (row.containsKey(PARSE_ERROR)) return row.get(PARSE_ERROR);
+
+        String name   = trimmed(row.get(DatabaseHelper.COL_CLIENT_NAME));
+        String detail = trimmed(row.get(DatabaseHelper.COL_ORDER_DETAIL));
+        if (name == null)   return "falta " + DatabaseHelper.COL_CLIENT_NAME;
+        if (detail == null) return "falta " + DatabaseHelper.COL_ORDER_DETAIL;
+
+        String payment = trimmed(row.get(DatabaseHelper.COL_PAYMENT_TYPE));
+        if (payment == null) payment = Order.PAYMENT_CASH;
+        payment = payment.toLowerCase(Locale.ROOT);
+        if (!payment.equals(Order.PAYMENT_CASH) && !payment.equals(Order.PAYMENT_TRANSFER)) {
+            return "tipo de pago inválido: " + payment;
+        }
+
+        double lat, lng;
+        try {
+            lat = parseCoordinate(row.get(DatabaseHelper.COL_LATITUDE));
+            lng = parseCoordinate(row.get(DatabaseHelper.COL_LONGITUDE));
+        } catch (NumberFormatException e) {
+            return "coordenadas inválidas";
+        }
+        if (Math.abs(lat) > 90 || Math.abs(lng) > 180) return "coordenadas fuera de rango";
+
+        String createdAt = trimmed(row.get(DatabaseHelper.COL_CREATED_AT));
+        if (createdAt == null) {
+            createdAt = now;
+        } else {
+            // parse() acepta "2024-1-5 1:2:3" y basura al final; se exige que
+            // consuma todo y se guarda reformateado, porque la lista ordena y
+            // filtra created_at como texto
+            ParsePosition pos    = new ParsePosition(0);
+            Date          parsed = dateFormat.parse(createdAt, pos);
+            if (parsed == null || pos.getIndex() != createdAt.length()) {
+                return "fecha inválida (se espera " + Order.CREATED_AT_PATTERN + "): " + createdAt;
+            }
+            createdAt = dateFormat.format(parsed);
+        }
+
+        // Solo se respeta SYNCED si trae el ID del servidor; lo demás queda por subir
+        String serverId = trimmed(row.get(DatabaseHelper.COL_SERVER_ID));
+        String status   = Order.STATUS_SYNCED.equals(trimmed(row.get(DatabaseHelper.COL_STATUS)))
+                && serverId != null ? Order.STATUS_SYNCED : Order.STATUS_PENDING;
+        row.put(DatabaseHelper.COL_STATUS, status);
+
+        String key = trimmed(row.get(DatabaseHelper.COL_IDEMPOTENCY_KEY));
+        if (key == null) key = Order.newIdempotencyKey();
+
+        st.clearBindings();
+        st.bindString(1, name);
+        bindNullable(st, 2, trimmed(row.get(DatabaseHelper.COL_CLIENT_PHONE)));
+        bindNullable(st, 3, trimmed(row.get(DatabaseHelper.COL_CLIENT_ADDRESS)));
+        st.bindString(4, detail);
+        st.bindString(5, payment);
+        st.bindDouble(6, lat);
+        st.bindDouble(7, lng);
+        st.bindString(8, status);
+        st.bindString(9, createdAt);
+        bindNullable(st, 10, serverId);
+        st.bindString(11, key);
+        return null;
+    }
+
+    private static void bindNullable(SQLiteStatement st, int index, String value) {
+        if (value == null) st.bindNull(index);
+        else               st.bindString(index, value);
+    }
+
+    private static String trimmed(String s) {
+        if (s == null) return null;
+        s = s.trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    private static double parseCoordinate(String s) {
+        s = trimmed(s);
+        return s == null ? 0.0 : Double.parseDouble(s);
+    }
+
+    // ── Lectores de filas ────────────────────────────────────────────────────
+
+    /** Entrega una fila por vez como columna → valor; null al terminar. */
+    private interface RowSource {
+        Map<String, String> next() throws IOException;
+        /** Línea del archivo donde empieza la última fila entregada. */
+        int line();
+    }
+
+    /** Un objeto JSON por línea; las líneas vacías se ignoran. */
+    private static class NdjsonSource implements RowSource {
+        private final BufferedReader reader;
+        private int line = 0;
+
+        NdjsonSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (text.trim().isEmpty()) continue;
+                Map<String, String> row = new HashMap<>();
+                try {
+                    JSONObject json = new JSONObject(text);
+                    for (Iterator<String> it = json.keys(); it.hasNext(); ) {
+                        String key = it.next();
+                        if (!json.isNull(key)) row.put(key, json.get(key).toString());
+                    }
+                } catch (JSONException e) {
+                    row.put(PARSE_ERROR, "JSON inválido");
+                }
+                return row;
+            }
+            return null;
+        }
+
+        @Override
+        public int line() { return line; }
+    }
+
+    /** CSV RFC 4180 (comillas dobles, saltos de línea dentro de campos) con encabezado. */
+    private static class CsvSource implements RowSource {
+        private final BufferedReader reader;   // mark/reset para las comillas dobles
+        private String[] header;
+        private int line = 1;       // línea actual del lector
+        private int rowLine = 1;    // línea donde empezó la última fila
+        private boolean eof = false;
+
+        CsvSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public Map<String, String> next() throws IOException {
+            if (header == null) {
+                List<String> names = readRecord();
+                if (names == null) return null;
+                header = new String[names.size()];
+                for (int i = 0; i < header.length; i++) header[i] = names.get(i).trim();
+            }
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) return null;
+            } while (fields.size() == 1 && fields.get(0).isEmpty());   // línea vacía
+
+            Map<String, String> row = new HashMap<>();
+            for (int i = 0; i < header.length && i < fields.size(); i++) {
+                row.put(header[i], fields.get(i));
+            }
+            return row;
+        }
+
+        @Override
+        public int line() { return rowLine; }
+
+        private List<String> readRecord() throws IOException {
+            if (eof) return null;
+            rowLine = line;
+            List<String>  fields = new ArrayList<>();
+            StringBuilder field  = new StringBuilder();
+            boolean quoted = false, any = false;
+
+            int ch;
+            while ((ch = reader.read()) != -1) {
+                any = true;
+                char c = (char) ch;
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        int nextCh = reader.read();
+                        if (nextCh == '"') {
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            if (nextCh != -1) reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    fields.add(field.toString());
+                    return fields;
+                } else if (c != '\r') {
+                    field.append(c);
+                }
+            }
+            eof = true;
+            if (!any) return null;
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
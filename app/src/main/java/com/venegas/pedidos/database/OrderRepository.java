@@ -0,0 +1,177 @@
+package com.venegas.pedidos.database;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.sync.SyncScheduler;
+import com.venegas.pedidos.utils.AppExecutors;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OrderRepository — acceso asíncrono a los pedidos para las Activities.
+ * Ninguna consulta SQLite corre en el hilo de UI:
+ *   - escrituras en el hilo diskIO (un único escritor, igual que la sync),
+ *   - lecturas en un pool propio, que con WAL no espera a las escrituras.
+ * Los resultados se entregan siempre en el hilo principal.
+ */
+public class OrderRepository {
+
+    /** Resultado de una operación asíncrona; se llama en el hilo principal. */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static final int READ_THREADS = 2;
+    private static final String TAG   = "OrderRepository";
+
+    /** Carpeta de exportaciones dentro de cacheDir; declarada en file_paths.xml. */
+    public static final String EXPORT_DIR = "exports";
+
+    // ── Singleton ────────────────────────────────────────────────────────────
+    private static OrderRepository instance;
+
+    public static synchronized OrderRepository getInstance(Context ctx) {
+        if (instance == null) {
+            instance = new OrderRepository(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context         context;
+    private final DatabaseHelper  db;
+    private final ExecutorService readExecutor;
+    private final Executor        writeExecutor;
+    private final Executor        mainThread;
+
+    private OrderRepository(Context context) {
+        this.context  = context;
+        db            = DatabaseHelper.getInstance(context);
+        writeExecutor = AppExecutors.getInstance().diskIO();
+        mainThread    = AppExecutors.getInstance().mainThread();
+
+        AtomicInteger count = new AtomicInteger(1);
+        readExecutor  = Executors.newFixedThreadPool(READ_THREADS,
+                r -> new Thread(r, "pedidos-db-read-" + count.getAndIncrement()));
+    }
+
+    // ── Escrituras ───────────────────────────────────────────────────────────
+
+    /**
+     * Inserta un pedido; entrega el ID generado o -1 si hubo error.
+     * Un pedido nuevo dispara una sincronización automática (si hay red).
+     */
+    public void insertOrder(Order order, Callback<Long> callback) {
+        run(writeExecutor, () -> {
+            long id = db.insertOrder(order);
+            if (id != -1) SyncScheduler.requestSync(context);
+            return id;
+        }, callback);
+    }
+
+    /**
+     * Importa pedidos desde un archivo CSV o NDJSON elegido por el usuario.
+     * Corre en diskIO (el único escritor) en lotes transaccionales; progress
+     * recibe las filas procesadas tras cada lote. Entrega null si no se pudo leer.
+     */
+    public void importOrders(Uri uri, Callback<Integer> progress,
+                             Callback<OrderImporter.Result> callback) {
+        run(writeExecutor, () -> {
+            OrderImporter.Result result;
+            try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+                if (in == null) throw new IOException("No se pudo abrir " + uri);
+                result = new OrderImporter(db).importFrom(in, processed ->
+                        mainThread.execute(() -> progress.onResult(processed)));
+            }
+            if (result.pending > 0) SyncScheduler.requestSync(context);
+            return result;
+        }, callback);
+    }
+
+    // ── Lecturas ─────────────────────────────────────────────────────────────
+
+    public void getOrderById(long id, Callback<Order> callback) {
+        run(readExecutor, () -> db.getOrderById(id), callback);
+    }
+
+    /**
+     * Página de pedidos filtrada, más recientes primero; after = null para la primera.
+     * El filtro se copia al llamar: la UI puede seguir cambiándolo mientras la
+     * consulta corre en el pool de lectura.
+     */
+    public void getOrdersPage(OrderFilter filter, Order after, int limit,
+                              Callback<List<Order>> callback) {
+        OrderFilter snapshot = filter != null ? filter.copy() : null;
+        run(readExecutor, () -> db.getOrdersPage(snapshot, after, limit), callback);
+    }
+
+    /** Búsqueda de texto completo; ver {@link DatabaseHelper#searchOrders}. También copia el filtro. */
+    public void searchOrders(String query, OrderFilter filter, int limit,
+                             Callback<List<Order>> callback) {
+        OrderFilter snapshot = filter != null ? filter.copy() : null;
+        run(readExecutor, () -> db.searchOrders(query, snapshot, limit), callback);
+    }
+
+    /**
+     * Exporta todos los pedidos a un archivo nuevo en cache/exports/
+     * (compartible por el FileProvider). Borra exportaciones anteriores.
+     * Entrega el archivo, o null si hubo error.
+     */
+    public void exportOrders(OrderExporter.Format format, boolean withPhotos,
+                             Callback<File> callback) {
+        run(readExecutor, () -> {
+            File dir = new File(context.getCacheDir(), EXPORT_DIR);
+            File[] previous = dir.listFiles();
+            if (previous != null) for (File f : previous) f.delete();
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("No se pudo crear " + dir);
+            }
+
+            String stamp = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+            String name  = "pedidos_" + stamp + "." + (withPhotos ? "zip" : format.extension);
+            File   dst   = new File(dir, name);
+            OrderExporter exporter = new OrderExporter(db);
+            if (withPhotos) exporter.exportZip(format, dst);
+            else            exporter.export(format, dst);
+            return dst;
+        }, callback);
+    }
+
+    public void getStatusCounts(Callback<DatabaseHelper.StatusCounts> callback) {
+        run(readExecutor, db::getStatusCounts, callback);
+    }
+
+    /** Pedidos que subiría una sync manual: PENDING más los ERROR reintentables. */
+    public void getSyncableCount(Callback<Integer> callback) {
+        run(readExecutor, () -> db.getStatusCounts().pending + db.countRetryableErrors(), callback);
+    }
+
+    // ── Helpers ──────────────────────────────────────────────────────────────
+
+    private <T> void run(Executor executor, Callable<T> work, Callback<T> callback) {
+        executor.execute(() -> {
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Error en SQLite: " + e.getMessage(), e);
+                result = null;
+            }
+            T delivered = result;
+            mainThread.execute(() -> callback.onResult(delivered));
+        });
+    }
+}
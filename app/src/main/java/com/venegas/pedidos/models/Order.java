@@ -1,5 +1,10 @@
 package com.venegas.pedidos.models;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+
 /**
  * Modelo de datos de un Pedido.
  * Representa tanto la entidad local (SQLite) como el objeto que se envía a la API.
@@ -11,6 +16,16 @@ public class Order {
     public static final String STATUS_SYNCED   = "SYNCED";     // Sincronizado con el servidor
     public static final String STATUS_ERROR    = "ERROR";      // Error al sincronizar
 
+    // ── Tipos de pago ────────────────────────────────────────────────────────
+    public static final String PAYMENT_CASH     = "efectivo";
+    public static final String PAYMENT_TRANSFER = "transferencia";
+
+    /**
+     * Formato de createdAt. Ordena igual como texto que como fecha, así que
+     * SQLite filtra y ordena por created_at con un índice normal.
+     */
+    public static final String CREATED_AT_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
     // ── Campos de la entidad ─────────────────────────────────────────────────
     private long   id;            // ID local SQLite (autoincrement)
     private String clientName;    // Nombre del cliente
@@ -19,12 +34,18 @@ public class Order {
     private String orderDetail;   // Detalle del pedido
     private String paymentType;   // "efectivo" o "transferencia"
     private String photoPath;     // Ruta local de la fotografía
+    private String compressedPhotoPath; // Versión reducida que se sube (null si aún no existe)
     private double latitude;      // Latitud GPS
     private double longitude;     // Longitud GPS
     private String status;        // STATUS_PENDING / SYNCED / ERROR
     private String errorMessage;  // Mensaje de error si falló la sync
-    private String createdAt;     // Fecha/hora de creación (ISO 8601)
+    private String errorType;     // SyncFailure.NETWORK / AUTH / VALIDATION / SERVER
+    private int    attemptCount;  // Intentos de sync fallidos
+    private long   nextRetryAt;   // Próximo reintento automático (epoch ms, 0 = ninguno)
+    private String createdAt;     // Fecha/hora de creación (CREATED_AT_PATTERN)
     private String serverId;      // ID asignado por el servidor (null si no sincronizado)
+    private String idempotencyKey; // UUID generado en el dispositivo; el servidor no duplica reintentos
+    private String serverStatus;  // Estado en el servidor tras subirlo (null si no se conoce)
 
     // ── Constructor vacío ────────────────────────────────────────────────────
     public Order() {
@@ -45,6 +66,7 @@ public class Order {
         this.longitude     = longitude;
         this.createdAt     = createdAt;
         this.status        = STATUS_PENDING;
+        this.idempotencyKey = newIdempotencyKey();
     }
 
     // ── Getters y Setters ────────────────────────────────────────────────────
@@ -69,6 +91,9 @@ public class Order {
     public String getPhotoPath()            { return photoPath; }
     public void setPhotoPath(String v)      { photoPath = v; }
 
+    public String getCompressedPhotoPath()        { return compressedPhotoPath; }
+    public void setCompressedPhotoPath(String v)  { compressedPhotoPath = v; }
+
     public double getLatitude()             { return latitude; }
     public void setLatitude(double v)       { latitude = v; }
 
@@ -81,12 +106,36 @@ public class Order {
     public String getErrorMessage()         { return errorMessage; }
     public void setErrorMessage(String v)   { errorMessage = v; }
 
+    public String getErrorType()            { return errorType; }
+    public void setErrorType(String v)      { errorType = v; }
+
+    public int getAttemptCount()            { return attemptCount; }
+    public void setAttemptCount(int v)      { attemptCount = v; }
+
+    public long getNextRetryAt()            { return nextRetryAt; }
+    public void setNextRetryAt(long v)      { nextRetryAt = v; }
+
     public String getCreatedAt()            { return createdAt; }
     public void setCreatedAt(String v)      { createdAt = v; }
 
     public String getServerId()             { return serverId; }
     public void setServerId(String v)       { serverId = v; }
 
+    public String getIdempotencyKey()       { return idempotencyKey; }
+    public void setIdempotencyKey(String v) { idempotencyKey = v; }
+
+    public String getServerStatus()         { return serverStatus; }
+    public void setServerStatus(String v)   { serverStatus = v; }
+
+    public static String newIdempotencyKey() {
+        return UUID.randomUUID().toString();
+    }
+
+    /** Fecha en el formato de createdAt; Locale.US para que los dígitos sean siempre ASCII. */
+    public static String formatCreatedAt(Date date) {
+        return new SimpleDateFormat(CREATED_AT_PATTERN, Locale.US).format(date);
+    }
+
     // ── Helpers ──────────────────────────────────────────────────────────────
     public boolean isPending()  { return STATUS_PENDING.equals(status); }
     public boolean isSynced()   { return STATUS_SYNCED.equals(status); }
@@ -4,23 +4,43 @@ import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
+import retrofit2.http.GET;
 import retrofit2.http.Header;
+import retrofit2.http.Headers;
 import retrofit2.http.Multipart;
 import retrofit2.http.POST;
+import retrofit2.http.PUT;
 import retrofit2.http.Part;
+import retrofit2.http.Path;
+import retrofit2.http.Query;
+
+import java.util.List;
 
 
 public interface ApiService {
 
 
+    @Headers(GzipRequestInterceptor.ENABLE)
     @POST("auth/login")
     Call<LoginResponse> login(@Body LoginRequest body);
 
 
+    /** Renueva un token expirado; devuelve uno nuevo con el mismo formato que el login. */
+    @POST("auth/refresh")
+    Call<LoginResponse> refreshToken(@Header("Authorization") String authHeader);
+
+
+    // ── Llamadas autenticadas (AuthInterceptor agrega Authorization) ────────
+
+    /**
+     * Crea un pedido. Idempotency-Key es el UUID local del pedido: si el
+     * servidor ya lo recibió responde 409 con el serverId existente.
+     */
     @Multipart
+    @Headers(GzipRequestInterceptor.ENABLE)   // solo se aplica si la foto no va en el cuerpo
     @POST("orders")
     Call<OrderResponse> createOrder(
-            @Header("Authorization") String authHeader,
+            @Header("Idempotency-Key") String idempotencyKey,
             @Part("clientName")    RequestBody clientName,
             @Part("clientPhone")   RequestBody clientPhone,
             @Part("clientAddress") RequestBody clientAddress,
@@ -30,10 +50,56 @@ public interface ApiService {
             @Part("longitude")     RequestBody longitude,
             @Part("localId")       RequestBody localId,
             @Part("createdAt")     RequestBody createdAt,
+            @Part("photoUploadId") RequestBody photoUploadId,   // null si la foto va en "photo"
             @Part MultipartBody.Part photo
     );
 
 
+    // ── Subida reanudable de fotos ───────────────────────────────────────────
+
+    /** Abre una sesión de subida; devuelve su ID y el offset confirmado (0). */
+    @POST("uploads")
+    Call<UploadSession> startUpload(@Body StartUploadRequest body);
+
+    /** Envía un fragmento. Content-Range: "bytes inicio-fin/total". */
+    @PUT("uploads/{uploadId}")
+    Call<UploadSession> uploadChunk(
+            @Path("uploadId") String uploadId,
+            @Header("Content-Range") String contentRange,
+            @Body RequestBody chunk
+    );
+
+    /** Consulta cuántos bytes tiene confirmados el servidor. */
+    @GET("uploads/{uploadId}")
+    Call<UploadSession> getUploadStatus(@Path("uploadId") String uploadId);
+
+
+    /**
+     * Subida por lotes: un solo POST con N pedidos.
+     * "orders" es un arreglo JSON de {@link BatchOrder}; cada foto viaja como
+     * una parte propia cuyo nombre se indica en {@link BatchOrder#photoPart}.
+     */
+    @Multipart
+    @Headers(GzipRequestInterceptor.ENABLE)   // solo se aplica a lotes sin fotos
+    @POST("orders/batch")
+    Call<BatchResponse> createOrdersBatch(
+            @Part("orders") RequestBody ordersJson,
+            @Part List<MultipartBody.Part> photos
+    );
+
+
+    /**
+     * Cambios en pedidos de este usuario posteriores al cursor (null = desde el
+     * principio), en orden. Cada cambio trae solo los campos que cambiaron.
+     * Si hasMore es true hay que pedir la siguiente página con nextCursor.
+     */
+    @GET("orders/changes")
+    Call<ChangesResponse> getOrderChanges(
+            @Query("since") String cursor,
+            @Query("limit") int limit
+    );
+
+
     class LoginRequest {
         public String username;
         public String password;
@@ -57,4 +123,69 @@ public interface ApiService {
         public String status;
         public String error;
     }
+
+    class StartUploadRequest {
+        public long   localId;
+        public String fileName;
+        public long   fileSize;
+        public StartUploadRequest(long localId, String fileName, long fileSize) {
+            this.localId  = localId;
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+        }
+    }
+
+    class UploadSession {
+        public String uploadId;
+        public long   offset;        // bytes confirmados por el servidor
+        public String error;
+    }
+
+    class BatchOrder {
+        public long   localId;
+        public String idempotencyKey;
+        public String clientName;
+        public String clientPhone;
+        public String clientAddress;
+        public String orderDetail;
+        public String paymentType;
+        public double latitude;
+        public double longitude;
+        public String createdAt;
+        public String photoPart;     // nombre de la parte multipart con la foto (null si no hay)
+    }
+
+    class BatchResponse {
+        public List<BatchItemResult> results;
+        public String message;
+        public String error;
+    }
+
+    class ChangesResponse {
+        public List<OrderChange> changes;
+        public String  nextCursor;   // opaco; se guarda tal cual para la próxima consulta
+        public boolean hasMore;
+        public String  error;
+    }
+
+    class OrderChange {
+        public String serverId;
+        public String status;        // estado en el servidor: entregado, cancelado...
+        public String updatedAt;
+        public String clientName;    // null = sin cambios
+        public String clientPhone;
+        public String clientAddress;
+        public String orderDetail;
+        public String paymentType;
+    }
+
+    class BatchItemResult {
+        public static final String STATUS_DUPLICATE = "duplicate";
+
+        public long   localId;
+        public String serverId;
+        public String status;        // "created" si se guardó, "duplicate" si ya existía
+        public String error;
+        public int    code;          // código HTTP equivalente del rechazo (0 si no lo informa)
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.venegas.pedidos.network;
+
+import android.content.Context;
+
+import com.venegas.pedidos.utils.SessionManager;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * AuthInterceptor — agrega "Authorization: Bearer ..." a las peticiones
+ * autenticadas con el token en memoria de {@link SessionManager}.
+ * No toca las rutas de /auth/ ni las que ya traen el encabezado (refresh).
+ */
+public class AuthInterceptor implements Interceptor {
+
+    private final SessionManager session;
+
+    public AuthInterceptor(Context context) {
+        this.session = SessionManager.getInstance(context);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String  bearer  = session.getBearerToken();
+        if (bearer == null
+                || request.header("Authorization") != null
+                || request.url().encodedPath().startsWith("/auth/")) {
+            return chain.proceed(request);
+        }
+        return chain.proceed(request.newBuilder().header("Authorization", bearer).build());
+    }
+}
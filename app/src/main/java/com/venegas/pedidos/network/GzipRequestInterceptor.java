@@ -0,0 +1,84 @@
+package com.venegas.pedidos.network;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * GzipRequestInterceptor — comprime con gzip el cuerpo de las peticiones
+ * de los endpoints que lo aceptan.
+ * Un endpoint se apunta con @Headers(GzipRequestInterceptor.ENABLE); el
+ * interceptor quita esa cabecera, y si el cuerpo vale la pena (texto/JSON,
+ * sin JPEG ni binarios ya comprimidos, y no diminuto) lo envía con
+ * Content-Encoding: gzip.
+ * Con la configuración por defecto (foto obligatoria al crear, subida
+ * reanudable apagada) la foto viaja en el mismo cuerpo, así que los pedidos
+ * creados en la app no se comprimen nunca, y el login no llega a
+ * MIN_SIZE_BYTES. Hoy solo se comprimen los pedidos importados (sin foto) y
+ * los pedidos cuya foto va antes por uploads/.
+ */
+public class GzipRequestInterceptor implements Interceptor {
+
+    public static final String HEADER = "X-Request-Compression";
+    public static final String ENABLE = HEADER + ": gzip";
+
+    // Por debajo de esto la cabecera gzip cuesta más de lo que ahorra
+    private static final long MIN_SIZE_BYTES = 1024;
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.header(HEADER) == null) {
+            return chain.proceed(request);
+        }
+
+        Request.Builder builder = request.newBuilder().removeHeader(HEADER);
+        RequestBody body = request.body();
+        if (body == null
+                || request.header("Content-Encoding") != null
+                || body.contentLength() < MIN_SIZE_BYTES
+                || !isCompressible(body)) {
+            return chain.proceed(builder.build());
+        }
+
+        return chain.proceed(builder
+                .header("Content-Encoding", "gzip")
+                .method(request.method(), gzip(body))
+                .build());
+    }
+
+    /** Texto y JSON sí; imágenes y binarios (ya comprimidos) no. */
+    private static boolean isCompressible(RequestBody body) {
+        if (body instanceof MultipartBody) {
+            for (MultipartBody.Part part : ((MultipartBody) body).parts()) {
+                if (!isCompressibleType(part.body().contentType())) return false;
+            }
+            return true;
+        }
+        return isCompressibleType(body.contentType());
+    }
+
+    private static boolean isCompressibleType(MediaType type) {
+        if (type == null) return true;
+        return !"image".equals(type.type())
+                && !"application/octet-stream".equals(type.type() + "/" + type.subtype());
+    }
+
+    /** Comprime en memoria para poder enviar Content-Length (el servidor lo necesita). */
+    private static RequestBody gzip(RequestBody body) throws IOException {
+        Buffer compressed = new Buffer();
+        try (BufferedSink sink = Okio.buffer(new GzipSink(compressed))) {
+            body.writeTo(sink);
+        }
+        return RequestBody.create(body.contentType(), compressed.readByteString());
+    }
+}
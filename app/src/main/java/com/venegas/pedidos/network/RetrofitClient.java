@@ -1,31 +1,95 @@
 package com.venegas.pedidos.network;
 
+import android.content.Context;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.venegas.pedidos.BuildConfig;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
+
+/**
+ * RetrofitClient — un único OkHttpClient para toda la app.
+ * Todas las llamadas comparten el mismo pool de conexiones (y la misma
+ * conexión HTTP/2 cuando el servidor la negocia por ALPN), así la sync en
+ * paralelo no abre un socket TLS nuevo por pedido.
+ */
 public class RetrofitClient {
 
     public static final String BASE_URL = "https://backend-pedidos-2xvq.onrender.com/";
-    private static ApiService apiService;
 
-    public static synchronized ApiService getService() {
-        if (apiService == null) {
+    // Dimensionado para SyncEngine (varias subidas simultáneas al mismo host)
+    private static final int  MAX_REQUESTS          = 32;
+    private static final int  MAX_REQUESTS_PER_HOST = 8;
+    private static final int  MAX_IDLE_CONNECTIONS  = 8;
+    private static final long KEEP_ALIVE_MINUTES    = 5;
+
+    private static String       baseUrl = BASE_URL;
+    private static Context      appContext;
+    private static OkHttpClient client;
+    private static ApiService   apiService;
+
+    /** Se llama una vez desde PedidosApp, antes de cualquier petición. */
+    public static synchronized void init(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    /** Apunta el servicio a otro servidor (MockWebServer en los tests). */
+    @VisibleForTesting
+    public static synchronized void setBaseUrl(String url) {
+        baseUrl    = url;
+        apiService = null;
+    }
+
+    /** Cliente compartido; usarlo (o client.newBuilder()) para cualquier llamada HTTP. */
+    public static synchronized OkHttpClient getClient() {
+        if (client == null) {
+            // En release no se registra nada: el cuerpo incluye fotos y datos de clientes
             HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-            logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+            logging.setLevel(BuildConfig.DEBUG
+                    ? HttpLoggingInterceptor.Level.BODY
+                    : HttpLoggingInterceptor.Level.NONE);
+            logging.redactHeader("Authorization");
 
-            OkHttpClient client = new OkHttpClient.Builder()
+            Dispatcher dispatcher = new Dispatcher();
+            dispatcher.setMaxRequests(MAX_REQUESTS);
+            dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+            OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(
+                            MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                    .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                    .retryOnConnectionFailure(true)
                     .addInterceptor(logging)
+                    .addInterceptor(new GzipRequestInterceptor())
                     .connectTimeout(30, TimeUnit.SECONDS)
                     .readTimeout(30, TimeUnit.SECONDS)
-                    .writeTimeout(60, TimeUnit.SECONDS)
-                    .build();
+                    .writeTimeout(60, TimeUnit.SECONDS);
+            if (appContext != null) {
+                // El token se agrega aquí y no como parámetro de cada llamada
+                builder.interceptors().add(0, new AuthInterceptor(appContext));
+                builder.authenticator(new TokenAuthenticator(appContext));
+            }
+            client = builder.build();
+        }
+        return client;
+    }
 
+    public static synchronized ApiService getService() {
+        if (apiService == null) {
             Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(BASE_URL)
-                    .client(client)
+                    .baseUrl(baseUrl)
+                    .client(getClient())
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
 
@@ -33,4 +97,4 @@ public class RetrofitClient {
         }
         return apiService;
     }
-}
\ No newline at end of file
+}
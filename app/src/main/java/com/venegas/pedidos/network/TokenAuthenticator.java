@@ -0,0 +1,76 @@
+package com.venegas.pedidos.network;
+
+import android.content.Context;
+
+import com.venegas.pedidos.utils.SessionManager;
+
+import java.io.IOException;
+
+import okhttp3.Authenticator;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+
+/**
+ * TokenAuthenticator — recupera los 401 sin fallar toda la sincronización.
+ * Con el primer 401 renueva el token una sola vez (POST auth/refresh);
+ * mientras tanto las demás peticiones que reciben 401 esperan en el lock
+ * y, al terminar, se reenvían con el token nuevo. Si el servidor rechaza
+ * la renovación devuelve null: la petición termina en 401 y la sync pide
+ * iniciar sesión. Si la renovación no llega por falta de red, el
+ * IOException sigue de largo: la petición falla como error de red, se
+ * reintenta más tarde y la sesión se conserva.
+ */
+public class TokenAuthenticator implements Authenticator {
+
+    private final Context context;
+    private final Object  lock = new Object();
+
+    // Token con el que la renovación ya falló (para no repetirla por cada petición)
+    private String failedToken;
+
+    public TokenAuthenticator(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public Request authenticate(Route route, Response response) throws IOException {
+        // Login y refresh no se reintentan (evita bucles)
+        if (response.request().url().encodedPath().startsWith("/auth/")) return null;
+        // Ya se reintentó esta petición con un token nuevo
+        if (response.priorResponse() != null) return null;
+
+        String sentAuth = response.request().header("Authorization");
+        SessionManager session = SessionManager.getInstance(context);
+
+        synchronized (lock) {
+            // Otro hilo ya renovó el token mientras esta petición estaba en vuelo
+            String current = session.getBearerToken();
+            if (current != null && !current.equals(sentAuth)) {
+                return withAuth(response.request(), current);
+            }
+            if (sentAuth == null || sentAuth.equals(failedToken)) return null;
+
+            // Sin red el IOException se propaga: devolver null entregaría el 401
+            // original y la sync lo tomaría como sesión inválida
+            retrofit2.Response<ApiService.LoginResponse> refreshed =
+                    RetrofitClient.getService().refreshToken(sentAuth).execute();
+
+            ApiService.LoginResponse body = refreshed.body();
+            if (!refreshed.isSuccessful() || body == null
+                    || body.token == null || body.token.isEmpty()) {
+                failedToken = sentAuth;
+                return null;
+            }
+
+            session.saveSession(body.token,
+                    body.name     != null ? body.name     : session.getUserName(),
+                    body.username != null ? body.username : session.getUsername());
+            return withAuth(response.request(), session.getBearerToken());
+        }
+    }
+
+    private static Request withAuth(Request request, String bearer) {
+        return request.newBuilder().header("Authorization", bearer).build();
+    }
+}
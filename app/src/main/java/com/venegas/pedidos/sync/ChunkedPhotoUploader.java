@@ -0,0 +1,133 @@
+package com.venegas.pedidos.sync;
+
+import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.network.ApiService;
+import com.venegas.pedidos.network.RetrofitClient;
+
+import java.io.File;
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import retrofit2.Response;
+
+/**
+ * ChunkedPhotoUploader — sube una foto por fragmentos reanudables.
+ * Cada fragmento confirmado por el servidor se guarda en la tabla
+ * photo_uploads; si la conexión se corta, el siguiente intento consulta
+ * el offset al servidor y continúa desde ahí en lugar de empezar de cero.
+ */
+public class ChunkedPhotoUploader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /** El servidor respondió con un código HTTP de error. */
+    public static class HttpError extends Exception {
+        public final int code;
+
+        HttpError(int code) {
+            super("HTTP " + code);
+            this.code = code;
+        }
+    }
+
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    private final DatabaseHelper db;
+    private final int chunkSize;
+
+    public ChunkedPhotoUploader(DatabaseHelper db, int chunkSize) {
+        this.db        = db;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sube (o termina de subir) la foto del pedido.
+     * @return uploadId de la sesión completa, para adjuntarlo al pedido.
+     * @throws IOException si se corta la red; el progreso queda guardado.
+     */
+    public String upload(long orderId, File file) throws IOException, HttpError {
+        ApiService api  = RetrofitClient.getService();
+        long       size = file.length();
+
+        DatabaseHelper.PhotoUpload state = db.getPhotoUpload(orderId);
+        if (state != null && (!state.filePath.equals(file.getAbsolutePath()) || state.fileSize != size)) {
+            // La foto cambió desde el último intento: empezar de nuevo
+            db.deletePhotoUpload(orderId);
+            state = null;
+        }
+
+        if (state != null) {
+            // El servidor es quien sabe cuánto recibió realmente
+            Response<ApiService.UploadSession> status =
+                    api.getUploadStatus(state.uploadId).execute();
+            if (status.isSuccessful() && status.body() != null) {
+                state.confirmedOffset = status.body().offset;
+            } else if (status.code() == 404) {
+                db.deletePhotoUpload(orderId);   // sesión expirada en el servidor
+                state = null;
+            } else {
+                throw new HttpError(status.code());
+            }
+        }
+
+        if (state == null) {
+            Response<ApiService.UploadSession> started = api.startUpload(
+                    new ApiService.StartUploadRequest(orderId, file.getName(), size)).execute();
+            if (!started.isSuccessful() || started.body() == null) {
+                throw new HttpError(started.code());
+            }
+            state = new DatabaseHelper.PhotoUpload();
+            state.orderId         = orderId;
+            state.uploadId        = started.body().uploadId;
+            state.filePath        = file.getAbsolutePath();
+            state.fileSize        = size;
+            state.confirmedOffset = started.body().offset;
+            db.savePhotoUpload(state);
+        }
+
+        while (state.confirmedOffset < size) {
+            long start = state.confirmedOffset;
+            long end   = Math.min(start + chunkSize, size);   // exclusivo
+            String range = "bytes " + start + "-" + (end - 1) + "/" + size;
+
+            Response<ApiService.UploadSession> ack = api.uploadChunk(
+                    state.uploadId, range, fileRegion(file, start, end - start)).execute();
+            if (!ack.isSuccessful() || ack.body() == null) {
+                throw new HttpError(ack.code());
+            }
+            if (ack.body().offset <= start) {
+                throw new IOException("El servidor no confirmó el fragmento " + range);
+            }
+            state.confirmedOffset = ack.body().offset;
+            db.savePhotoUpload(state);
+        }
+        return state.uploadId;
+    }
+
+    /** Cuerpo que transmite solo [offset, offset + length) del archivo. */
+    private static RequestBody fileRegion(File file, long offset, long length) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return OCTET_STREAM;
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+                    source.skip(offset);
+                    sink.write(source, length);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.venegas.pedidos.sync;
+
+import com.google.gson.stream.MalformedJsonException;
+import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.network.ApiService;
+import com.venegas.pedidos.network.RetrofitClient;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import retrofit2.Response;
+
+/**
+ * OrderPuller — trae del servidor los cambios en pedidos ya sincronizados
+ * (entregado, cancelado, editados en el backend).
+ * Pide solo lo que cambió desde el último cursor guardado, página por
+ * página; cada página se aplica en una transacción en diskIO y recién
+ * entonces avanza el cursor. Si la red se corta a mitad, la próxima corrida
+ * repite como mucho la página que no llegó a confirmarse.
+ * Se ejecuta siempre desde un hilo de fondo del SyncEngine.
+ */
+public class OrderPuller {
+
+    static final int PAGE_SIZE = 200;
+    // Tope por corrida; lo que falte sigue en la próxima desde el cursor
+    static final int MAX_PAGES = 50;
+
+    /** Resultado de una corrida de pull. */
+    public static class Result {
+        public int    applied;       // pedidos locales que cambiaron
+        public String errorType;     // SyncFailure.*, null si terminó bien
+        public String errorMessage;
+    }
+
+    private final DatabaseHelper  db;
+    private final SyncSettings    settings;
+    private final ExecutorService diskIO;
+
+    public OrderPuller(DatabaseHelper db, SyncSettings settings, ExecutorService diskIO) {
+        this.db       = db;
+        this.settings = settings;
+        this.diskIO   = diskIO;
+    }
+
+    /** Aplica todos los cambios pendientes (hasta MAX_PAGES). Bloquea el hilo actual. */
+    public Result pull() throws InterruptedException {
+        Result result = new Result();
+        String cursor = settings.getPullCursor();
+
+        for (int page = 0; page < MAX_PAGES; page++) {
+            Response<ApiService.ChangesResponse> response;
+            try {
+                response = RetrofitClient.getService().getOrderChanges(cursor, PAGE_SIZE).execute();
+            } catch (MalformedJsonException | RuntimeException e) {
+                // Cuerpo que Gson no entiende (p. ej. HTML de un proxy con código 200)
+                return fail(result, SyncFailure.SERVER, "Respuesta inválida del servidor: " + e.getMessage());
+            } catch (IOException e) {
+                return fail(result, SyncFailure.NETWORK, "Sin conexión: " + e.getMessage());
+            }
+            ApiService.ChangesResponse body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                return fail(result, SyncFailure.fromHttpCode(response.code()), "HTTP " + response.code());
+            }
+
+            if (body.changes != null && !body.changes.isEmpty()) {
+                List<DatabaseHelper.ServerChange> changes = toServerChanges(body.changes);
+                try {
+                    result.applied += diskIO.submit(() -> db.applyServerChanges(changes)).get();
+                } catch (ExecutionException e) {
+                    // El cursor no avanza: la página se vuelve a pedir en la próxima corrida
+                    return fail(result, SyncFailure.SERVER, "No se pudieron guardar los cambios");
+                }
+            }
+
+            // Un servidor que no avanza el cursor dejaría el ciclo pidiendo lo mismo
+            if (body.nextCursor == null || body.nextCursor.equals(cursor)) break;
+            cursor = body.nextCursor;
+            settings.setPullCursor(cursor);
+            if (!body.hasMore) break;
+        }
+        return result;
+    }
+
+    private static Result fail(Result result, String errorType, String message) {
+        result.errorType    = errorType;
+        result.errorMessage = message;
+        return result;
+    }
+
+    private static List<DatabaseHelper.ServerChange> toServerChanges(List<ApiService.OrderChange> items) {
+        List<DatabaseHelper.ServerChange> changes = new ArrayList<>(items.size());
+        for (ApiService.OrderChange item : items) {
+            DatabaseHelper.ServerChange c = new DatabaseHelper.ServerChange();
+            c.serverId      = item.serverId;
+            c.status        = item.status;
+            c.updatedAt     = item.updatedAt;
+            c.clientName    = item.clientName;
+            c.clientPhone   = item.clientPhone;
+            c.clientAddress = item.clientAddress;
+            c.orderDetail   = item.orderDetail;
+            c.paymentType   = item.paymentType;
+            changes.add(c);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,260 @@
+package com.venegas.pedidos.sync;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.MalformedJsonException;
+import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.network.ApiService;
+import com.venegas.pedidos.network.RetrofitClient;
+import com.venegas.pedidos.utils.PhotoCompressor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import retrofit2.Response;
+
+/**
+ * OrderUploader — envía un pedido al servidor de forma síncrona.
+ * Se ejecuta siempre desde un hilo de fondo del SyncEngine.
+ */
+public class OrderUploader {
+
+    private static final int HTTP_CONFLICT = 409;
+
+    private final Gson gson = new Gson();
+    private final ChunkedPhotoUploader chunkedUploader;
+    private volatile boolean resumablePhotos = false;
+
+    public OrderUploader(DatabaseHelper db) {
+        chunkedUploader = new ChunkedPhotoUploader(db, ChunkedPhotoUploader.DEFAULT_CHUNK_SIZE);
+    }
+
+    /** Si es true la foto se sube antes por fragmentos reanudables (endpoint uploads/). */
+    public void setResumablePhotos(boolean value) { resumablePhotos = value; }
+
+    /** Resultado de la subida de un pedido. */
+    public static class Result {
+        public final boolean success;
+        public final String  serverId;
+        public final String  errorType;     // SyncFailure.*, null si hubo éxito
+        public final String  errorMessage;
+
+        private Result(boolean success, String serverId, String errorType, String errorMessage) {
+            this.success      = success;
+            this.serverId     = serverId;
+            this.errorType    = errorType;
+            this.errorMessage = errorMessage;
+        }
+
+        static Result ok(String serverId) {
+            return new Result(true, serverId, null, null);
+        }
+
+        static Result error(String errorType, String message) {
+            return new Result(false, null, errorType, message);
+        }
+
+        /** Error a partir de un código HTTP. */
+        static Result httpError(int code) {
+            String msg = code == 401 ? "Token inválido o expirado" : "HTTP " + code;
+            return error(SyncFailure.fromHttpCode(code), msg);
+        }
+
+        static Result networkError(IOException e) {
+            return error(SyncFailure.NETWORK, "Sin conexión: " + e.getMessage());
+        }
+
+        /**
+         * Fallo fuera de la red: el conversor no entendió una respuesta 2xx
+         * (p. ej. una página HTML). Gson lo informa como RuntimeException o
+         * como MalformedJsonException, que es un IOException pero no un
+         * corte de red. Se trata como error temporal del servidor.
+         */
+        static Result unexpected(Exception e) {
+            return error(SyncFailure.SERVER, "Respuesta inválida del servidor: " + e.getMessage());
+        }
+    }
+
+    /** Sube el pedido y devuelve el resultado (éxito o error). Bloquea el hilo actual. */
+    public Result upload(Order order) {
+        // Preparar campos de texto
+        RequestBody clientName    = toReqBody(order.getClientName());
+        RequestBody clientPhone   = toReqBody(order.getClientPhone() != null ? order.getClientPhone() : "");
+        RequestBody clientAddress = toReqBody(order.getClientAddress() != null ? order.getClientAddress() : "");
+        RequestBody orderDetail   = toReqBody(order.getOrderDetail());
+        RequestBody paymentType   = toReqBody(order.getPaymentType() != null ? order.getPaymentType() : "");
+        RequestBody latitude      = toReqBody(String.valueOf(order.getLatitude()));
+        RequestBody longitude     = toReqBody(String.valueOf(order.getLongitude()));
+        RequestBody localId       = toReqBody(String.valueOf(order.getId()));
+        RequestBody createdAt     = toReqBody(order.getCreatedAt() != null ? order.getCreatedAt() : "");
+
+        // Preparar foto (puede ser null si no se tomó)
+        MultipartBody.Part photoPart     = null;
+        RequestBody        photoUploadId = null;
+        File               photoFile     = photoFileFor(order);
+
+        if (resumablePhotos && photoFile != null) {
+            // La foto va primero por fragmentos; el pedido solo lleva su uploadId
+            try {
+                photoUploadId = toReqBody(chunkedUploader.upload(order.getId(), photoFile));
+            } catch (ChunkedPhotoUploader.HttpError e) {
+                return Result.httpError(e.code);
+            } catch (MalformedJsonException | RuntimeException e) {
+                return Result.unexpected(e);
+            } catch (IOException e) {
+                // El progreso de la foto queda guardado; el reintento continúa desde ahí
+                return Result.error(SyncFailure.NETWORK,
+                        "Subida de foto interrumpida: " + e.getMessage());
+            }
+        } else {
+            photoPart = toPhotoPart(order, "photo");
+        }
+
+        try {
+            Response<ApiService.OrderResponse> response = RetrofitClient.getService().createOrder(
+                    order.getIdempotencyKey(),
+                    clientName, clientPhone, clientAddress,
+                    orderDetail, paymentType, latitude, longitude,
+                    localId, createdAt, photoUploadId, photoPart
+            ).execute();
+
+            if (response.isSuccessful() && response.body() != null) {
+                return Result.ok(response.body().serverId);
+            }
+            // 409: el servidor ya tenía este pedido (reintento tras un timeout)
+            if (response.code() == HTTP_CONFLICT) {
+                String existingId = serverIdFromError(response);
+                if (existingId != null) return Result.ok(existingId);
+            }
+            // ❌ Error HTTP (400, 401, 500...)
+            return Result.httpError(response.code());
+        } catch (MalformedJsonException | RuntimeException e) {
+            return Result.unexpected(e);
+        } catch (IOException e) {
+            // ❌ Error de red (sin conexión)
+            return Result.networkError(e);
+        }
+    }
+
+    /**
+     * Sube un lote de pedidos en una sola petición multipart.
+     * @return resultado por ID local; todos los pedidos del lote tienen entrada.
+     */
+    public Map<Long, Result> uploadBatch(List<Order> orders) {
+        List<ApiService.BatchOrder> items = new ArrayList<>();
+        List<MultipartBody.Part>    photos = new ArrayList<>();
+
+        for (int i = 0; i < orders.size(); i++) {
+            Order o = orders.get(i);
+            ApiService.BatchOrder item = new ApiService.BatchOrder();
+            item.localId       = o.getId();
+            item.idempotencyKey = o.getIdempotencyKey();
+            item.clientName    = o.getClientName();
+            item.clientPhone   = o.getClientPhone() != null ? o.getClientPhone() : "";
+            item.clientAddress = o.getClientAddress() != null ? o.getClientAddress() : "";
+            item.orderDetail   = o.getOrderDetail();
+            item.paymentType   = o.getPaymentType() != null ? o.getPaymentType() : "";
+            item.latitude      = o.getLatitude();
+            item.longitude     = o.getLongitude();
+            item.createdAt     = o.getCreatedAt() != null ? o.getCreatedAt() : "";
+
+            MultipartBody.Part photoPart = toPhotoPart(o, "photo_" + i);
+            if (photoPart != null) {
+                item.photoPart = "photo_" + i;
+                photos.add(photoPart);
+            }
+            items.add(item);
+        }
+
+        RequestBody ordersJson = RequestBody.create(
+                MediaType.parse("application/json"), gson.toJson(items));
+
+        Map<Long, Result> results = new HashMap<>();
+        try {
+            Response<ApiService.BatchResponse> response = RetrofitClient.getService()
+                    .createOrdersBatch(ordersJson, photos)
+                    .execute();
+
+            if (response.isSuccessful() && response.body() != null
+                    && response.body().results != null) {
+                for (ApiService.BatchItemResult r : response.body().results) {
+                    // "duplicate": ya estaba (reintento tras un timeout); vale como éxito
+                    // aunque el servidor lo acompañe de un mensaje de error
+                    boolean duplicate = ApiService.BatchItemResult.STATUS_DUPLICATE.equals(r.status)
+                            && r.serverId != null;
+                    if (duplicate || (r.serverId != null && r.error == null)) {
+                        results.put(r.localId, Result.ok(r.serverId));
+                    } else {
+                        results.put(r.localId, Result.error(itemFailure(r),
+                                r.error != null ? r.error : "Rechazado por el servidor"));
+                    }
+                }
+            } else {
+                fillMissing(results, orders, Result.httpError(response.code()));
+            }
+        } catch (MalformedJsonException | RuntimeException e) {
+            fillMissing(results, orders, Result.unexpected(e));
+        } catch (IOException e) {
+            fillMissing(results, orders, Result.networkError(e));
+        }
+
+        // Pedidos que el servidor no devolvió en la respuesta
+        fillMissing(results, orders, Result.error(SyncFailure.SERVER,
+                "Sin respuesta del servidor para este pedido"));
+        return results;
+    }
+
+    /**
+     * Clasifica el rechazo de un pedido del lote por su código. Sin código no
+     * se sabe si fue validación o un fallo temporal: se trata como SERVER,
+     * que se reintenta con backoff hasta RetryPolicy.MAX_ATTEMPTS.
+     */
+    private static String itemFailure(ApiService.BatchItemResult r) {
+        return r.code > 0 ? SyncFailure.fromHttpCode(r.code) : SyncFailure.SERVER;
+    }
+
+    /** Lee el serverId del cuerpo de error de una respuesta 409. */
+    private String serverIdFromError(Response<?> response) {
+        if (response.errorBody() == null) return null;
+        try {
+            ApiService.OrderResponse body = gson.fromJson(
+                    response.errorBody().charStream(), ApiService.OrderResponse.class);
+            return body != null ? body.serverId : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void fillMissing(Map<Long, Result> results, List<Order> orders, Result value) {
+        for (Order o : orders) {
+            if (!results.containsKey(o.getId())) results.put(o.getId(), value);
+        }
+    }
+
+    /**
+     * Archivo a subir: la versión comprimida si ya está lista,
+     * si no el original. Null si el pedido no tiene foto.
+     */
+    static File photoFileFor(Order order) {
+        return PhotoCompressor.bestAvailable(order);
+    }
+
+    /** Crea la parte multipart de la foto, o null si el pedido no tiene foto. */
+    private MultipartBody.Part toPhotoPart(Order order, String partName) {
+        File photoFile = photoFileFor(order);
+        if (photoFile == null) return null;
+        RequestBody photoBody = RequestBody.create(MediaType.parse("image/jpeg"), photoFile);
+        return MultipartBody.Part.createFormData(partName, photoFile.getName(), photoBody);
+    }
+
+    private RequestBody toReqBody(String value) {
+        return RequestBody.create(MediaType.parse("text/plain"), value);
+    }
+}
@@ -0,0 +1,38 @@
+package com.venegas.pedidos.sync;
+
+import java.util.Random;
+
+/**
+ * RetryPolicy — backoff exponencial con jitter para los reintentos.
+ * Intento n espera entre la mitad y el total de BASE · 2^(n-1), con tope
+ * MAX_DELAY. El jitter evita que muchos dispositivos reintenten a la vez
+ * cuando el servidor vuelve después de una caída.
+ */
+public final class RetryPolicy {
+
+    public static final long BASE_DELAY_MS = 30_000L;           // 30 s
+    public static final long MAX_DELAY_MS  = 60L * 60_000L;     // 1 h
+    public static final int  MAX_ATTEMPTS  = 8;
+
+    private static final Random random = new Random();
+
+    private RetryPolicy() {}
+
+    /**
+     * Momento del próximo reintento tras el intento número attempt (1, 2, ...),
+     * o 0 si ya no se debe reintentar.
+     */
+    public static long nextRetryAt(String errorType, int attempt, long now) {
+        if (!SyncFailure.isRetryable(errorType) || attempt >= MAX_ATTEMPTS) return 0;
+        return now + delayMs(attempt);
+    }
+
+    static long delayMs(int attempt) {
+        long exp = BASE_DELAY_MS << Math.min(attempt - 1, 20);
+        long cap = Math.min(exp, MAX_DELAY_MS);
+        long half = cap / 2;
+        synchronized (random) {
+            return half + (long) (random.nextDouble() * (cap - half));
+        }
+    }
+}
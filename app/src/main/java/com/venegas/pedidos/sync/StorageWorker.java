@@ -0,0 +1,27 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.venegas.pedidos.utils.PhotoStorageManager;
+
+/**
+ * StorageWorker — mantenimiento periódico de las fotos en el dispositivo
+ * (archivado, cuota y huérfanos). Lo programa {@link SyncScheduler}.
+ */
+public class StorageWorker extends Worker {
+
+    public StorageWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        new PhotoStorageManager(getApplicationContext()).runMaintenance();
+        return Result.success();
+    }
+}
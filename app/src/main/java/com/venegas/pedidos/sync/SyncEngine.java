@@ -0,0 +1,365 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.utils.AppExecutors;
+import com.venegas.pedidos.utils.PhotoStorageManager;
+import com.venegas.pedidos.utils.SessionManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SyncEngine — sincroniza los pedidos PENDING fuera del hilo de UI.
+ * También reintenta los errores transitorios según {@link RetryPolicy}.
+ * Sube hasta {@link #getMaxInFlight()} pedidos en paralelo, escribe los
+ * resultados en SQLite desde el hilo diskIO y publica el progreso en el
+ * hilo principal a cualquier {@link SyncListener} registrado.
+ * Al terminar la subida trae los cambios del servidor ({@link OrderPuller})
+ * antes de avisar el fin de la corrida.
+ * Vive a nivel de proceso, así que sobrevive a rotaciones de la Activity.
+ */
+public class SyncEngine {
+
+    /** Observador del progreso. Todos los métodos se llaman en el hilo principal. */
+    public interface SyncListener {
+        void onSyncStarted(int total);
+        void onOrderSynced(Order order, int done, int total);
+        void onSyncFinished(int success, int errors);
+        /** La sesión expiró y no se pudo renovar: hay que volver a iniciar sesión. */
+        void onAuthRequired();
+    }
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    public static final int DEFAULT_BATCH_SIZE    = 1;   // 1 = un POST por pedido
+
+    private static final String TAG = "SyncEngine";
+
+    // ── Singleton ────────────────────────────────────────────────────────────
+    private static SyncEngine instance;
+
+    public static synchronized SyncEngine getInstance(Context ctx) {
+        if (instance == null) {
+            instance = new SyncEngine(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final Context        context;
+    private final DatabaseHelper db;
+    private final OrderUploader  uploader;
+    private final OrderPuller    puller;
+    private final PhotoStorageManager storage;
+    private final Executor       diskIO;
+    private final Executor       mediaIO;
+    private final Executor       mainThread;
+    private final Executor       pullIO;
+    private final List<SyncListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private volatile int batchSize   = DEFAULT_BATCH_SIZE;
+
+    // Progreso de la corrida actual (solo se modifica desde diskIO)
+    private volatile int total   = 0;
+    private volatile int done    = 0;
+    private volatile int success = 0;
+    private volatile int errors  = 0;
+    private volatile int deferred = 0;   // pedidos con foto dejados para Wi-Fi
+    private volatile boolean photosDeferred = false;   // la corrida omitió los pedidos con foto
+    private volatile int pulled   = 0;   // pedidos actualizados con cambios del servidor
+
+    // Bytes de fotos de la corrida, para el progreso y la estimación de tiempo
+    private volatile long bytesTotal = 0;
+    private volatile long bytesDone  = 0;
+    private volatile long startedAt  = 0;
+
+    // Sesión expirada sin renovación: la cola se detiene (los pedidos quedan como estaban)
+    private volatile boolean authFailed = false;
+
+    private SyncEngine(Context context) {
+        this.context = context;
+        db           = DatabaseHelper.getInstance(context);
+        uploader     = new OrderUploader(db);
+        puller       = new OrderPuller(db, new SyncSettings(context),
+                AppExecutors.getInstance().diskIO());
+        storage      = new PhotoStorageManager(context);
+        diskIO       = AppExecutors.getInstance().diskIO();
+        mediaIO      = AppExecutors.getInstance().mediaIO();
+        mainThread   = AppExecutors.getInstance().mainThread();
+        // La descarga de cambios no debe ocupar diskIO mientras espera la red
+        pullIO       = Executors.newSingleThreadExecutor(r -> new Thread(r, "pedidos-sync-pull"));
+    }
+
+    // ── Configuración y estado ───────────────────────────────────────────────
+
+    /** Número máximo de peticiones simultáneas al servidor (mínimo 1). */
+    public void setMaxInFlight(int value) { maxInFlight = Math.max(1, value); }
+    public int getMaxInFlight()            { return maxInFlight; }
+
+    /**
+     * Pedidos por petición. Con valores mayores a 1 se usa el endpoint
+     * orders/batch: N pedidos y sus fotos viajan en un único POST.
+     */
+    public void setBatchSize(int value)   { batchSize = Math.max(1, value); }
+    public int getBatchSize()              { return batchSize; }
+
+    /**
+     * Sube las fotos por fragmentos reanudables antes del pedido (solo en modo
+     * de un pedido por petición). Si la red se corta, el pedido sigue PENDING
+     * y el próximo intento continúa desde el último fragmento confirmado.
+     */
+    public void setResumablePhotos(boolean value) { uploader.setResumablePhotos(value); }
+
+    public boolean isRunning()  { return running.get(); }
+    public int getTotal()       { return total; }
+    public int getDone()        { return done; }
+    public long getBytesTotal() { return bytesTotal; }
+    public long getBytesDone()  { return bytesDone; }
+    public long getStartedAt()  { return startedAt; }
+    /** Pedidos que la última corrida actualizó con cambios del servidor. */
+    public int getPulled()      { return pulled; }
+
+    public void addListener(SyncListener l)    { listeners.add(l); }
+    public void removeListener(SyncListener l) { listeners.remove(l); }
+
+    // ── Sincronización ───────────────────────────────────────────────────────
+
+    /**
+     * Ejecuta una sincronización y bloquea hasta que termine.
+     * Se usa desde {@link SyncWorker}.
+     * @param includeNotDue también los errores cuyo reintento no ha vencido (sync manual).
+     * @param deferPhotos   omitir los pedidos con foto (red con datos medidos).
+     * @return cuántos pedidos se omitieron por tener foto.
+     */
+    public int runBlocking(boolean includeNotDue, boolean deferPhotos) throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        SyncListener waiter = new SyncListener() {
+            @Override public void onSyncStarted(int total) {}
+            @Override public void onOrderSynced(Order order, int done, int total) {}
+            @Override public void onSyncFinished(int success, int errors) { latch.countDown(); }
+            @Override public void onAuthRequired() {}
+        };
+        addListener(waiter);
+        try {
+            // Si ya hay una corrida en curso, basta con esperar a que termine
+            if (!start(includeNotDue, deferPhotos) && !isRunning()) return 0;
+            latch.await();
+            return deferred;
+        } finally {
+            removeListener(waiter);
+        }
+    }
+
+    private boolean start(boolean includeNotDue, boolean deferPhotos) {
+        if (!running.compareAndSet(false, true)) return false;
+
+        diskIO.execute(() -> {
+            List<Order> pending = db.getSyncableOrders(System.currentTimeMillis(), includeNotDue);
+            deferred   = 0;
+            pulled     = 0;
+            authFailed = false;
+            photosDeferred = deferPhotos;
+            if (deferPhotos) {
+                List<Order> withoutPhoto = new ArrayList<>();
+                for (Order o : pending) {
+                    if (OrderUploader.photoFileFor(o) == null) withoutPhoto.add(o);
+                }
+                deferred = pending.size() - withoutPhoto.size();
+                pending  = withoutPhoto;
+            }
+            long bytes = 0;
+            for (Order o : pending) bytes += photoBytes(o);
+            bytesTotal = bytes;
+            bytesDone  = 0;
+            startedAt  = System.currentTimeMillis();
+            total   = pending.size();
+            done    = 0;
+            success = 0;
+            errors  = 0;
+            notifyStarted(total);
+
+            if (pending.isEmpty()) {
+                finish();
+                return;
+            }
+
+            int size = batchSize;
+            List<List<Order>> batches = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i += size) {
+                batches.add(pending.subList(i, Math.min(i + size, pending.size())));
+            }
+
+            ExecutorService uploads = Executors.newFixedThreadPool(
+                    Math.min(maxInFlight, batches.size()), new UploadThreadFactory());
+            for (List<Order> batch : batches) {
+                uploads.execute(() -> uploadBatch(batch));
+            }
+            uploads.shutdown();
+        });
+        return true;
+    }
+
+    /** Sube un lote (o un pedido suelto) y encola sus resultados en diskIO. */
+    private void uploadBatch(List<Order> batch) {
+        if (authFailed) {
+            // No gastar una subida (con foto) por pedido sabiendo que dará 401
+            diskIO.execute(() -> {
+                for (Order order : batch) onSkipped(order);
+            });
+            return;
+        }
+
+        if (batch.size() == 1) {
+            Order order = batch.get(0);
+            OrderUploader.Result result = uploader.upload(order);
+            diskIO.execute(() -> onResult(order, result));
+            return;
+        }
+
+        Map<Long, OrderUploader.Result> results = uploader.uploadBatch(batch);
+        diskIO.execute(() -> {
+            for (Order order : batch) onResult(order, results.get(order.getId()));
+        });
+    }
+
+    /** Guarda el resultado de un pedido. Corre en diskIO. */
+    private void onResult(Order order, OrderUploader.Result result) {
+        if (!result.success && SyncFailure.AUTH.equals(result.errorType)) {
+            // El authenticator ya intentó renovar el token: pausar la cola
+            // y dejar el pedido como estaba para subirlo tras el login
+            authFailed = true;
+            onSkipped(order);
+            return;
+        }
+
+        if (result.success) {
+            db.updateOrderStatus(order.getId(), Order.STATUS_SYNCED, null, result.serverId);
+            db.deletePhotoUpload(order.getId());
+            // El servidor ya tiene la foto: reducir la copia local fuera de diskIO
+            mediaIO.execute(() -> storage.archive(order));
+            order.setStatus(Order.STATUS_SYNCED);
+            order.setServerId(result.serverId);
+            order.setErrorMessage(null);
+            success++;
+        } else {
+            // Intento fallido: programar reintento con backoff si el error es transitorio
+            int  attempts    = order.getAttemptCount() + 1;
+            long nextRetryAt = RetryPolicy.nextRetryAt(result.errorType, attempts,
+                    System.currentTimeMillis());
+            db.updateOrderFailure(order.getId(), result.errorType, result.errorMessage,
+                    attempts, nextRetryAt);
+            order.setStatus(Order.STATUS_ERROR);
+            order.setErrorType(result.errorType);
+            order.setErrorMessage(result.errorMessage);
+            order.setAttemptCount(attempts);
+            order.setNextRetryAt(nextRetryAt);
+            errors++;
+        }
+        done++;
+        bytesDone += photoBytes(order);
+
+        int d = done, t = total;
+        mainThread.execute(() -> {
+            for (SyncListener l : listeners) l.onOrderSynced(order, d, t);
+        });
+
+        if (done >= total) finish();
+    }
+
+    /** Pedido no intentado en esta corrida; conserva su estado. Corre en diskIO. */
+    private void onSkipped(Order order) {
+        done++;
+        bytesDone += photoBytes(order);
+        int d = done, t = total;
+        mainThread.execute(() -> {
+            for (SyncListener l : listeners) l.onOrderSynced(order, d, t);
+        });
+        if (done >= total) finish();
+    }
+
+    private static long photoBytes(Order order) {
+        File photo = OrderUploader.photoFileFor(order);
+        return photo != null ? photo.length() : 0;
+    }
+
+    private void notifyStarted(int t) {
+        mainThread.execute(() -> {
+            for (SyncListener l : listeners) l.onSyncStarted(t);
+        });
+    }
+
+    /**
+     * Fin de la subida. Corre en diskIO. Si la sesión sigue válida trae los
+     * cambios del servidor en pullIO y cierra la corrida al volver.
+     */
+    private void finish() {
+        if (authFailed) {
+            complete();
+            return;
+        }
+        pullIO.execute(() -> {
+            try {
+                OrderPuller.Result result = puller.pull();
+                pulled = result.applied;
+                if (SyncFailure.AUTH.equals(result.errorType)) authFailed = true;
+                if (result.errorType != null) {
+                    Log.w(TAG, "Pull incompleto: " + result.errorMessage);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                diskIO.execute(this::complete);
+            }
+        });
+    }
+
+    /** Cierra la corrida. Corre en diskIO. */
+    private void complete() {
+        boolean needsLogin = authFailed;
+        if (needsLogin) {
+            // Token sin renovación posible: sin sesión, SyncWorker no vuelve a
+            // intentar (ni con la app cerrada) hasta el próximo login, que pide
+            // una sync. Los pedidos omitidos conservan un next_retry_at vencido,
+            // así que programar el reintento aquí lo dispararía de inmediato.
+            SessionManager.getInstance(context).clearSession();
+        } else {
+            // Programar el siguiente reintento automático (o cancelarlo si no queda ninguno).
+            // Si se omitieron las fotos, sus reintentos vencidos no cuentan: volverían
+            // a correr al instante en la misma red medida. Los sube WORK_PHOTOS.
+            SyncScheduler.scheduleRetry(context, db.getNextRetryAt(photosDeferred));
+        }
+
+        int s = success, e = errors;
+        running.set(false);
+        mainThread.execute(() -> {
+            for (SyncListener l : listeners) {
+                if (needsLogin) l.onAuthRequired();
+                l.onSyncFinished(s, e);
+            }
+        });
+    }
+
+    /** Hilos con nombre para identificar las subidas en trazas y perfiles. */
+    private static class UploadThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, "pedidos-sync-" + count.getAndIncrement());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.venegas.pedidos.sync;
+
+/**
+ * SyncFailure — clasificación de los errores de sincronización.
+ * Se guarda en la columna error_type y decide si el pedido se reintenta solo.
+ */
+public final class SyncFailure {
+
+    public static final String NETWORK    = "NETWORK";     // sin conexión, timeout, corte
+    public static final String AUTH       = "AUTH";        // 401: token inválido o expirado
+    public static final String VALIDATION = "VALIDATION";  // otros 4xx: el servidor rechazó el pedido
+    public static final String SERVER     = "SERVER";      // 5xx, 408 y 429: fallo temporal del servidor
+
+    private SyncFailure() {}
+
+    /** Clasifica un código HTTP de error. */
+    public static String fromHttpCode(int code) {
+        if (code == 401) return AUTH;
+        if (code == 408 || code == 429 || code >= 500) return SERVER;
+        return VALIDATION;
+    }
+
+    /**
+     * Los errores de red, servidor y token se reintentan automáticamente
+     * (el token se renueva al volver a iniciar sesión). Un pedido rechazado
+     * por validación fallaría igual, así que queda en ERROR hasta revisarlo.
+     */
+    public static boolean isRetryable(String type) {
+        return NETWORK.equals(type) || SERVER.equals(type) || AUTH.equals(type);
+    }
+}
@@ -0,0 +1,135 @@
+package com.venegas.pedidos.sync;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+
+import androidx.core.app.NotificationCompat;
+import androidx.work.ForegroundInfo;
+
+import com.venegas.pedidos.R;
+import com.venegas.pedidos.activities.LoginActivity;
+
+import java.util.Locale;
+
+/**
+ * SyncNotifier — notificación de progreso de una sincronización larga.
+ * La usa {@link SyncWorker} para correr como servicio en primer plano
+ * (tipo dataSync): muestra "n de M", megabytes de fotos subidos y el
+ * tiempo restante estimado con la velocidad de la corrida actual.
+ */
+public class SyncNotifier {
+
+    public static final int NOTIFICATION_ID = 1001;
+
+    private static final String CHANNEL_ID = "pedidos_sync";
+
+    // El sistema limita la frecuencia de actualización de una notificación
+    private static final long MIN_UPDATE_INTERVAL_MS = 1000;
+
+    private final Context    context;
+    private final SyncEngine engine;
+    private long lastUpdate = 0;
+
+    public SyncNotifier(Context context) {
+        this.context = context.getApplicationContext();
+        this.engine  = SyncEngine.getInstance(context);
+        createChannel();
+    }
+
+    /** Notificación inicial, antes de saber cuántos pedidos hay. */
+    public ForegroundInfo preparing() {
+        return foregroundInfo(builder()
+                .setContentText("Preparando pedidos…")
+                .setProgress(0, 0, true)
+                .build());
+    }
+
+    /** Progreso actual del SyncEngine; null si no pasó el intervalo mínimo. */
+    public ForegroundInfo progress(boolean force) {
+        long now = System.currentTimeMillis();
+        if (!force && now - lastUpdate < MIN_UPDATE_INTERVAL_MS) return null;
+        lastUpdate = now;
+
+        int done  = engine.getDone();
+        int total = engine.getTotal();
+
+        StringBuilder text = new StringBuilder()
+                .append(done).append(" de ").append(total).append(" pedidos");
+        long bytesTotal = engine.getBytesTotal();
+        if (bytesTotal > 0) {
+            text.append(" · ").append(megabytes(engine.getBytesDone()))
+                    .append(" de ").append(megabytes(bytesTotal)).append(" MB");
+        }
+        long eta = etaMillis(now);
+        if (eta > 0) {
+            text.append(" · ").append(formatEta(eta));
+        }
+
+        return foregroundInfo(builder()
+                .setContentText(text)
+                .setProgress(Math.max(total, 1), done, false)
+                .build());
+    }
+
+    /**
+     * Tiempo restante estimado. Con fotos se estima por bytes (dominan el
+     * tiempo de subida); sin fotos, por pedidos. 0 si aún no hay datos.
+     */
+    private long etaMillis(long now) {
+        long elapsed = now - engine.getStartedAt();
+        if (engine.getStartedAt() == 0 || elapsed <= 0) return 0;
+
+        long bytesTotal = engine.getBytesTotal();
+        long bytesDone  = engine.getBytesDone();
+        if (bytesTotal > 0 && bytesDone > 0) {
+            return elapsed * (bytesTotal - bytesDone) / bytesDone;
+        }
+        int done = engine.getDone();
+        if (done == 0) return 0;
+        return elapsed * (engine.getTotal() - done) / done;
+    }
+
+    private NotificationCompat.Builder builder() {
+        Intent open = new Intent(context, LoginActivity.class)
+                .setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        PendingIntent contentIntent = PendingIntent.getActivity(context, 0, open,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_sync_notification)
+                .setContentTitle("Sincronizando pedidos")
+                .setContentIntent(contentIntent)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setSilent(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW);
+    }
+
+    private static ForegroundInfo foregroundInfo(Notification notification) {
+        return new ForegroundInfo(NOTIFICATION_ID, notification,
+                ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+    }
+
+    private void createChannel() {
+        NotificationChannel channel = new NotificationChannel(CHANNEL_ID,
+                "Sincronización", NotificationManager.IMPORTANCE_LOW);
+        channel.setDescription("Progreso de la subida de pedidos al servidor");
+        context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format(Locale.US, "%.1f", bytes / (1024f * 1024f));
+    }
+
+    private static String formatEta(long millis) {
+        long seconds = Math.max(1, millis / 1000);
+        if (seconds < 60) return "~" + seconds + " s restantes";
+        long minutes = (seconds + 30) / 60;
+        return "~" + minutes + " min restantes";
+    }
+}
@@ -0,0 +1,152 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+
+import androidx.annotation.NonNull;
+
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+
+import com.venegas.pedidos.database.OrderRepository;
+import com.venegas.pedidos.utils.SessionManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SyncScheduler — programa sincronizaciones en segundo plano con WorkManager.
+ * Todas las peticiones son trabajos únicos con nombre: varios disparadores
+ * seguidos (pedido nuevo, red recuperada, periódico) se combinan en una sola
+ * corrida, y el SyncEngine además garantiza que nunca corran dos a la vez.
+ */
+public class SyncScheduler {
+
+    private static final String WORK_RETRY    = "pedidos_sync_retry";
+    private static final String WORK_NOW      = "pedidos_sync_now";
+    private static final String WORK_MANUAL   = "pedidos_sync_manual";
+    private static final String WORK_PHOTOS   = "pedidos_sync_photos";
+    private static final String WORK_PERIODIC = "pedidos_sync_periodic";
+    private static final String WORK_STORAGE  = "pedidos_storage_maintenance";
+
+    private static final long PERIODIC_MINUTES = 30;
+    private static final long STORAGE_HOURS    = 24;
+
+    private SyncScheduler() {}
+
+    /**
+     * Pide una sincronización en cuanto haya red validada. Si ya hay una
+     * corriendo, esta se encadena detrás (APPEND_OR_REPLACE): la corrida en
+     * curso ya leyó su lista de pedidos y no vería uno guardado ahora. Si la
+     * anterior falló o se canceló, se reemplaza en lugar de heredar su estado.
+     */
+    public static void requestSync(Context context) {
+        if (!new SyncSettings(context).isAutoSyncEnabled()) return;
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NOW,
+                ExistingWorkPolicy.APPEND_OR_REPLACE, oneTime(NetworkType.CONNECTED, 0));
+    }
+
+    /**
+     * Sincronización pedida por el usuario: expedita (empieza de inmediato
+     * si hay cuota) y con notificación de progreso. No depende de la
+     * preferencia de sync automática.
+     */
+    public static void requestManualSync(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+                .setConstraints(connected(NetworkType.CONNECTED))
+                .setInputData(SyncWorker.manualInput())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_MANUAL,
+                ExistingWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Al volver la red pide una sync si hay pedidos por subir. Las
+     * restricciones de WorkManager solo despiertan trabajos ya encolados;
+     * sin esto, un pedido que falló sin reintento pendiente esperaría a la
+     * próxima corrida periódica. Se registra una vez, desde PedidosApp.
+     */
+    public static void watchNetwork(Context context) {
+        Context app = context.getApplicationContext();
+        ConnectivityManager cm = app.getSystemService(ConnectivityManager.class);
+        cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onAvailable(@NonNull Network network) {
+                if (!SessionManager.getInstance(app).isLoggedIn()) return;
+                OrderRepository.getInstance(app).getSyncableCount(count -> {
+                    if (count != null && count > 0) requestSync(app);
+                });
+            }
+        });
+    }
+
+    /** Sincroniza los pedidos con foto que se dejaron para cuando haya Wi-Fi. */
+    public static void requestPhotoSyncOnUnmetered(Context context) {
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_PHOTOS,
+                ExistingWorkPolicy.KEEP, oneTime(NetworkType.UNMETERED, 0));
+    }
+
+    /** Activa (o desactiva) la sincronización periódica según las preferencias. */
+    public static void schedulePeriodic(Context context) {
+        WorkManager wm = WorkManager.getInstance(context);
+        if (!new SyncSettings(context).isAutoSyncEnabled()) {
+            wm.cancelUniqueWork(WORK_PERIODIC);
+            return;
+        }
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                SyncWorker.class, PERIODIC_MINUTES, TimeUnit.MINUTES)
+                .setConstraints(connected(NetworkType.CONNECTED))
+                .build();
+        wm.enqueueUniquePeriodicWork(WORK_PERIODIC, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /** Mantenimiento diario de fotos, con el dispositivo inactivo y batería suficiente. */
+    public static void scheduleStorageMaintenance(Context context) {
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                StorageWorker.class, STORAGE_HOURS, TimeUnit.HOURS)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiresDeviceIdle(true)
+                        .setRequiresBatteryNotLow(true)
+                        .build())
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_STORAGE,
+                ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    /**
+     * Programa el próximo reintento automático para el instante retryAt
+     * (epoch ms). Reemplaza cualquier reintento pendiente: siempre manda
+     * el error que vence primero. Con retryAt = 0 cancela el reintento.
+     */
+    public static void scheduleRetry(Context context, long retryAt) {
+        WorkManager wm = WorkManager.getInstance(context);
+        if (retryAt <= 0) {
+            wm.cancelUniqueWork(WORK_RETRY);
+            return;
+        }
+
+        long delay = Math.max(0, retryAt - System.currentTimeMillis());
+        wm.enqueueUniqueWork(WORK_RETRY, ExistingWorkPolicy.REPLACE,
+                oneTime(NetworkType.CONNECTED, delay));
+    }
+
+    private static OneTimeWorkRequest oneTime(NetworkType network, long delayMs) {
+        return new OneTimeWorkRequest.Builder(SyncWorker.class)
+                .setInitialDelay(delayMs, TimeUnit.MILLISECONDS)
+                .setConstraints(connected(network))
+                .build();
+    }
+
+    private static Constraints connected(NetworkType network) {
+        return new Constraints.Builder()
+                .setRequiredNetworkType(network)
+                .build();
+    }
+}
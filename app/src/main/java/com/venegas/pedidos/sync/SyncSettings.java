@@ -0,0 +1,61 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * SyncSettings — preferencias de la sincronización automática.
+ */
+public class SyncSettings {
+
+    private static final String PREFS_NAME      = "pedidos_sync";
+    private static final String KEY_AUTO_SYNC   = "auto_sync";
+    private static final String KEY_PHOTOS_WIFI = "photos_wifi_only";
+    private static final String KEY_PHOTO_QUOTA = "photo_quota_mb";
+    private static final String KEY_PULL_CURSOR = "pull_cursor";
+
+    public static final int DEFAULT_PHOTO_QUOTA_MB = 500;
+
+    private final SharedPreferences prefs;
+
+    public SyncSettings(Context context) {
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /** Sincronizar solo (al guardar pedidos, al recuperar la red y periódicamente). */
+    public boolean isAutoSyncEnabled() {
+        return prefs.getBoolean(KEY_AUTO_SYNC, true);
+    }
+
+    public void setAutoSyncEnabled(boolean value) {
+        prefs.edit().putBoolean(KEY_AUTO_SYNC, value).apply();
+    }
+
+    /** En datos móviles, la sync automática deja los pedidos con foto para el Wi-Fi. */
+    public boolean isPhotosOnWifiOnly() {
+        return prefs.getBoolean(KEY_PHOTOS_WIFI, false);
+    }
+
+    public void setPhotosOnWifiOnly(boolean value) {
+        prefs.edit().putBoolean(KEY_PHOTOS_WIFI, value).apply();
+    }
+
+    /** Espacio máximo para fotos de pedidos ya sincronizados (ver PhotoStorageManager). */
+    public int getPhotoQuotaMb() {
+        return prefs.getInt(KEY_PHOTO_QUOTA, DEFAULT_PHOTO_QUOTA_MB);
+    }
+
+    public void setPhotoQuotaMb(int value) {
+        prefs.edit().putInt(KEY_PHOTO_QUOTA, value).apply();
+    }
+
+    /** Cursor de orders/changes hasta donde ya se aplicaron cambios (null = nunca). */
+    public String getPullCursor() {
+        return prefs.getString(KEY_PULL_CURSOR, null);
+    }
+
+    /** commit() y no apply(): el cursor solo avanza si quedó escrito en disco. */
+    public void setPullCursor(String value) {
+        prefs.edit().putString(KEY_PULL_CURSOR, value).commit();
+    }
+}
@@ -0,0 +1,136 @@
+package com.venegas.pedidos.sync;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.ForegroundInfo;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.utils.SessionManager;
+
+import java.util.concurrent.ExecutionException;
+
+/**
+ * SyncWorker — ejecuta el SyncEngine desde WorkManager.
+ * Lo programa {@link SyncScheduler}; sobrevive a que la app se cierre.
+ * Cada corrida sube lo pendiente y luego trae los cambios del servidor.
+ * En datos móviles, si así se configuró, deja los pedidos con foto para
+ * una corrida posterior con Wi-Fi.
+ * Las corridas manuales (expeditas) pasan a primer plano con una
+ * notificación de progreso, para que el sistema no las corte si el
+ * vendedor cambia de app. Las automáticas no: desde Android 12 un trabajo
+ * no expedito en segundo plano no puede iniciar un servicio en primer
+ * plano. Cada pedido se guarda al terminar su subida, así que si el
+ * sistema corta una corrida larga la siguiente sigue desde ahí.
+ */
+public class SyncWorker extends Worker {
+
+    /** true = sync pedida por el usuario (incluye errores aún no vencidos). */
+    public static final String KEY_MANUAL = "manual";
+
+    private static final String TAG = "SyncWorker";
+
+    public SyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /** Solo se usa si el trabajo expedito tiene que correr como servicio. */
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        return new SyncNotifier(getApplicationContext()).preparing();
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        SessionManager session = SessionManager.getInstance(getApplicationContext());
+        if (!session.isLoggedIn()) {
+            // Sin sesión no se puede subir nada; se reintentará tras el login
+            return Result.success();
+        }
+
+        boolean manual      = getInputData().getBoolean(KEY_MANUAL, false);
+        boolean deferPhotos = !manual
+                && new SyncSettings(getApplicationContext()).isPhotosOnWifiOnly()
+                && isMeteredNetwork();
+
+        SyncEngine   engine   = SyncEngine.getInstance(getApplicationContext());
+        SyncNotifier notifier = new SyncNotifier(getApplicationContext());
+        ProgressListener progress = new ProgressListener(notifier, manual);
+        engine.addListener(progress);
+        try {
+            int deferred = engine.runBlocking(manual, deferPhotos);
+            if (deferred > 0) {
+                SyncScheduler.requestPhotoSyncOnUnmetered(getApplicationContext());
+            }
+            return Result.success();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        } finally {
+            engine.removeListener(progress);
+        }
+    }
+
+    static Data manualInput() {
+        return new Data.Builder().putBoolean(KEY_MANUAL, true).build();
+    }
+
+    private boolean isMeteredNetwork() {
+        ConnectivityManager cm = getApplicationContext().getSystemService(ConnectivityManager.class);
+        return cm == null || cm.isActiveNetworkMetered();
+    }
+
+    /** Pasa a primer plano si corresponde y mantiene la notificación al día. */
+    private class ProgressListener implements SyncEngine.SyncListener {
+        private final SyncNotifier notifier;
+        private final boolean      manual;
+        private volatile boolean foreground = false;
+
+        ProgressListener(SyncNotifier notifier, boolean manual) {
+            this.notifier = notifier;
+            this.manual   = manual;
+        }
+
+        @Override
+        public void onSyncStarted(int total) {
+            if (!manual) return;
+            foreground = true;
+            setForeground(notifier.progress(true));
+        }
+
+        @Override
+        public void onOrderSynced(Order order, int done, int total) {
+            if (!foreground) return;
+            ForegroundInfo info = notifier.progress(false);
+            if (info != null) setForeground(info);
+        }
+
+        /**
+         * Si la cuota de trabajo expedito se agotó, la sync manual corre como
+         * trabajo normal y el sistema puede negar el primer plano
+         * (ForegroundServiceStartNotAllowedException): se sigue sin notificación.
+         */
+        private void setForeground(ForegroundInfo info) {
+            ListenableFuture<Void> future = setForegroundAsync(info);
+            future.addListener(() -> {
+                try {
+                    future.get();
+                } catch (ExecutionException | InterruptedException e) {
+                    foreground = false;
+                    Log.w(TAG, "Sin primer plano: " + e.getMessage());
+                }
+            }, Runnable::run);
+        }
+
+        @Override public void onSyncFinished(int success, int errors) {}
+        @Override public void onAuthRequired() {}
+    }
+}
@@ -0,0 +1,42 @@
+package com.venegas.pedidos.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * AppExecutors — hilos compartidos por toda la app.
+ * diskIO:     un único hilo para SQLite (serializa las escrituras).
+ * mediaIO:    un hilo para trabajo pesado con imágenes (no bloquea SQLite).
+ * mainThread: publica resultados en el hilo de UI.
+ */
+public class AppExecutors {
+
+    // ── Singleton ────────────────────────────────────────────────────────────
+    private static AppExecutors instance;
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    private final ExecutorService diskIO;
+    private final ExecutorService mediaIO;
+    private final Executor        mainThread;
+
+    private AppExecutors() {
+        diskIO  = Executors.newSingleThreadExecutor(r -> new Thread(r, "pedidos-disk-io"));
+        mediaIO = Executors.newSingleThreadExecutor(r -> new Thread(r, "pedidos-media-io"));
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    public ExecutorService diskIO()  { return diskIO; }
+    public ExecutorService mediaIO() { return mediaIO; }
+    public Executor mainThread()     { return mainThread; }
+}
@@ -0,0 +1,131 @@
+package com.venegas.pedidos.utils;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.ExifInterface;
+import android.util.Log;
+
+import com.venegas.pedidos.models.Order;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * PhotoCompressor — reduce la foto de la cámara antes de subirla.
+ * Decodifica con inSampleSize (sin cargar la imagen completa en memoria),
+ * escala al lado máximo indicado, re-codifica en JPEG y copia la orientación
+ * EXIF del original. La versión comprimida se guarda en una carpeta
+ * "compressed" junto al original, con el mismo nombre de archivo.
+ */
+public class PhotoCompressor {
+
+    public static final int DEFAULT_MAX_EDGE = 1600;   // px del lado más largo
+    public static final int DEFAULT_QUALITY  = 80;     // calidad JPEG (0-100)
+
+    private static final String COMPRESSED_DIR = "compressed";
+    private static final String TAG            = "PhotoCompressor";
+
+    /** Ruta donde vive (o vivirá) la versión comprimida de una foto. */
+    public static File compressedFileFor(String originalPath) {
+        File original = new File(originalPath);
+        return new File(compressedDir(original.getParentFile()), original.getName());
+    }
+
+    /** Carpeta de las versiones comprimidas de las fotos guardadas en photosDir. */
+    public static File compressedDir(File photosDir) {
+        return new File(photosDir, COMPRESSED_DIR);
+    }
+
+    /**
+     * Mejor archivo disponible de la foto de un pedido: la versión comprimida
+     * si ya está lista, si no el original. Null si no queda ninguno en disco.
+     */
+    public static File bestAvailable(Order order) {
+        String[] candidates = {order.getCompressedPhotoPath(), order.getPhotoPath()};
+        for (String path : candidates) {
+            if (path == null || path.isEmpty()) continue;
+            File f = new File(path);
+            if (f.exists()) return f;
+        }
+        return null;
+    }
+
+    /** Comprime con los valores por defecto. */
+    public static File compress(String originalPath) throws IOException {
+        return compress(new File(originalPath), compressedFileFor(originalPath),
+                DEFAULT_MAX_EDGE, DEFAULT_QUALITY);
+    }
+
+    /**
+     * Comprime src en dst. Escribe primero a un temporal y lo renombra,
+     * para que la sync nunca suba un archivo a medio escribir.
+     * @return dst
+     */
+    public static File compress(File src, File dst, int maxEdge, int quality) throws IOException {
+        // 1) Leer solo dimensiones
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(src.getAbsolutePath(), bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("No se pudo leer la imagen: " + src.getName());
+        }
+
+        // 2) Decodificar submuestreada (potencia de 2 más cercana por encima de maxEdge)
+        int longest = Math.max(bounds.outWidth, bounds.outHeight);
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = 1;
+        while (longest / (opts.inSampleSize * 2) >= maxEdge) {
+            opts.inSampleSize *= 2;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(src.getAbsolutePath(), opts);
+        if (bitmap == null) {
+            throw new IOException("No se pudo decodificar la imagen: " + src.getName());
+        }
+
+        // 3) Ajuste fino al lado máximo
+        int w = bitmap.getWidth(), h = bitmap.getHeight();
+        float scale = (float) maxEdge / Math.max(w, h);
+        if (scale < 1f) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                    Math.round(w * scale), Math.round(h * scale), true);
+            bitmap.recycle();
+            bitmap = scaled;
+        }
+
+        // 4) Re-codificar a un temporal y renombrar
+        File dir = dst.getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            bitmap.recycle();
+            throw new IOException("No se pudo crear " + dir);
+        }
+        File tmp = new File(dst.getAbsolutePath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, quality, out);
+        } finally {
+            bitmap.recycle();
+        }
+        copyOrientation(src, tmp);
+
+        if (!tmp.renameTo(dst)) {
+            tmp.delete();
+            throw new IOException("No se pudo guardar " + dst.getName());
+        }
+        return dst;
+    }
+
+    /** La cámara guarda la rotación en EXIF; el JPEG re-codificado la pierde si no se copia. */
+    private static void copyOrientation(File from, File to) {
+        try {
+            String orientation = new ExifInterface(from.getAbsolutePath())
+                    .getAttribute(ExifInterface.TAG_ORIENTATION);
+            if (orientation == null) return;
+            ExifInterface exif = new ExifInterface(to.getAbsolutePath());
+            exif.setAttribute(ExifInterface.TAG_ORIENTATION, orientation);
+            exif.saveAttributes();
+        } catch (IOException e) {
+            Log.w(TAG, "No se pudo copiar EXIF: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.venegas.pedidos.utils;
+
+import android.content.Context;
+import android.os.Environment;
+import android.util.Log;
+
+import com.venegas.pedidos.database.DatabaseHelper;
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.sync.SyncSettings;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PhotoStorageManager — ciclo de vida de las fotos en el dispositivo.
+ *  - Al confirmarse la sync de un pedido, su original de la cámara se
+ *    reemplaza por una versión de archivo pequeña y se borra la copia
+ *    comprimida que se usó para subirlo (el servidor ya tiene la foto).
+ *  - Si las fotos de pedidos sincronizados superan la cuota configurada,
+ *    se borran las más antiguas (la lista sigue mostrando su miniatura).
+ *  - Barre los PEDIDO_*.jpg que ningún pedido referencia (fotos de
+ *    pedidos no guardados, restos de la cámara, temporales).
+ * Nunca toca fotos de pedidos PENDING o ERROR.
+ */
+public class PhotoStorageManager {
+
+    public static final int  ARCHIVE_MAX_EDGE  = 800;            // px del lado más largo
+    public static final int  ARCHIVE_QUALITY   = 70;
+    public static final long ARCHIVE_MAX_BYTES = 250L * 1024;    // mayor que esto = sin archivar
+
+    // Margen para no borrar la foto de un pedido que aún se está llenando
+    private static final long ORPHAN_MIN_AGE_MS = TimeUnit.HOURS.toMillis(24);
+
+    private static final String PHOTO_PREFIX = "PEDIDO_";
+    private static final String TAG          = "PhotoStorageManager";
+
+    private final Context        context;
+    private final DatabaseHelper db;
+
+    public PhotoStorageManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.db      = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Reduce la foto de un pedido ya sincronizado. Idempotente: un original
+     * ya archivado (pequeño) no se vuelve a re-codificar. Hace I/O de imagen,
+     * llamar desde mediaIO o un Worker.
+     */
+    public void archive(Order order) {
+        File compressed = order.getCompressedPhotoPath() != null
+                ? new File(order.getCompressedPhotoPath()) : null;
+        File original   = order.getPhotoPath() != null ? new File(order.getPhotoPath()) : null;
+
+        if (original != null && original.exists() && original.length() > ARCHIVE_MAX_BYTES) {
+            File archived = new File(original.getAbsolutePath() + ".archive");
+            try {
+                PhotoCompressor.compress(original, archived, ARCHIVE_MAX_EDGE, ARCHIVE_QUALITY);
+                if (!archived.renameTo(original)) {
+                    archived.delete();
+                    return;   // se conserva el original y la copia comprimida
+                }
+            } catch (IOException e) {
+                archived.delete();
+                Log.w(TAG, "No se pudo archivar la foto " + order.getId() + ": " + e.getMessage());
+                return;
+            }
+        }
+        if (compressed != null && compressed.exists()) compressed.delete();
+    }
+
+    /** Mantenimiento completo: archivar pendientes, aplicar la cuota y barrer huérfanos. */
+    public void runMaintenance() {
+        List<Order> synced = db.getSyncedPhotoOrders();
+        for (Order order : synced) archive(order);
+        enforceQuota(synced);
+        sweepOrphans();
+    }
+
+    /** Borra fotos de pedidos sincronizados, de la más antigua en adelante, hasta caber en la cuota. */
+    private void enforceQuota(List<Order> syncedOldestFirst) {
+        long quota = new SyncSettings(context).getPhotoQuotaMb() * 1024L * 1024L;
+
+        List<File> files = new ArrayList<>();
+        long total = 0;
+        for (Order order : syncedOldestFirst) {
+            File f = new File(order.getPhotoPath());
+            if (f.exists()) {
+                files.add(f);
+                total += f.length();
+            }
+        }
+        for (File f : files) {
+            if (total <= quota) break;
+            long size = f.length();
+            if (f.delete()) total -= size;
+        }
+    }
+
+    /** Borra PEDIDO_*.jpg (y temporales) que ningún pedido referencia. */
+    private void sweepOrphans() {
+        File picturesDir = context.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
+        if (picturesDir == null) return;
+
+        Set<String> referenced = db.getReferencedPhotoPaths();
+        long cutoff = System.currentTimeMillis() - ORPHAN_MIN_AGE_MS;
+        int deleted = 0;
+
+        for (File dir : new File[]{picturesDir, PhotoCompressor.compressedDir(picturesDir)}) {
+            File[] files = dir.listFiles();
+            if (files == null) continue;
+            for (File f : files) {
+                String name = f.getName();
+                if (!f.isFile() || !name.startsWith(PHOTO_PREFIX)) continue;
+                if (f.lastModified() > cutoff) continue;
+                if (referenced.contains(f.getAbsolutePath())) continue;
+                if (f.delete()) deleted++;
+            }
+        }
+        if (deleted > 0) Log.i(TAG, "Fotos huérfanas borradas: " + deleted);
+    }
+}
@@ -4,52 +4,105 @@ package com.venegas.pedidos.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
-    almacena y recupera el token de autenticación
+    almacena y recupera el token de autenticación.
+    Una sola instancia por proceso: la sesión se lee de SharedPreferences
+    al crearla y después se sirve desde memoria (la sync la consulta en
+    cada petición). Las escrituras actualizan memoria y se persisten con apply().
  */
 public class SessionManager {
 
+    /** Aviso de login, token renovado o logout. */
+    public interface OnSessionChangeListener {
+        void onSessionChanged(SessionManager session);
+    }
+
     private static final String PREFS_NAME  = "pedidos_session";
     private static final String KEY_TOKEN   = "auth_token";
     private static final String KEY_NAME    = "user_name";
     private static final String KEY_USER    = "username";
 
+    // ── Singleton ────────────────────────────────────────────────────────────
+    private static SessionManager instance;
+
+    public static synchronized SessionManager getInstance(Context ctx) {
+        if (instance == null) {
+            instance = new SessionManager(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
     private final SharedPreferences prefs;
+    private final CopyOnWriteArrayList<OnSessionChangeListener> listeners = new CopyOnWriteArrayList<>();
 
-    public SessionManager(Context context) {
+    // Copia en memoria; bearer se arma una vez por token
+    private volatile String token;
+    private volatile String bearer;
+    private volatile String name;
+    private volatile String username;
+
+    private SessionManager(Context context) {
         prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        load(prefs.getString(KEY_TOKEN, null),
+                prefs.getString(KEY_NAME, "Vendedor"),
+                prefs.getString(KEY_USER, ""));
     }
 
     public void saveSession(String token, String name, String username) {
-        prefs.edit()
-                .putString(KEY_TOKEN, token)
-                .putString(KEY_NAME, name)
-                .putString(KEY_USER, username)
-                .apply();
+        synchronized (this) {
+            load(token, name, username);
+            prefs.edit()
+                    .putString(KEY_TOKEN, token)
+                    .putString(KEY_NAME, name)
+                    .putString(KEY_USER, username)
+                    .apply();
+        }
+        notifyChanged();
     }
 
     public String getToken() {
-        return prefs.getString(KEY_TOKEN, null);
+        return token;
     }
 
     public String getUserName() {
-        return prefs.getString(KEY_NAME, "Vendedor");
+        return name;
     }
 
     public String getUsername() {
-        return prefs.getString(KEY_USER, "");
+        return username;
     }
 
     public boolean isLoggedIn() {
-        String token = getToken();
-        return token != null && !token.isEmpty();
+        String t = token;
+        return t != null && !t.isEmpty();
     }
 
     public void clearSession() {
-        prefs.edit().clear().apply();
+        synchronized (this) {
+            load(null, "Vendedor", "");
+            prefs.edit().clear().apply();
+        }
+        notifyChanged();
     }
 
+    /** "Bearer &lt;token&gt;", o null si no hay sesión. */
     public String getBearerToken() {
-        return "Bearer " + getToken();
+        return bearer;
+    }
+
+    public void addListener(OnSessionChangeListener l)    { listeners.add(l); }
+    public void removeListener(OnSessionChangeListener l) { listeners.remove(l); }
+
+    private void load(String token, String name, String username) {
+        this.token    = token;
+        this.bearer   = token != null && !token.isEmpty() ? "Bearer " + token : null;
+        this.name     = name != null ? name : "Vendedor";
+        this.username = username != null ? username : "";
+    }
+
+    private void notifyChanged() {
+        for (OnSessionChangeListener l : listeners) l.onSessionChanged(this);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,330 @@
+package com.venegas.pedidos.utils;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.venegas.pedidos.BuildConfig;
+import com.venegas.pedidos.R;
+import com.venegas.pedidos.models.Order;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ThumbnailCache — miniaturas cuadradas de las fotos de los pedidos.
+ * Se generan una sola vez (la primera vez que se ven) en una carpeta
+ * privada de la app, "thumbnails/&lt;orderId&gt;.jpg", ya rotadas según EXIF.
+ * Encima hay una LruCache en memoria; la carpeta se recorta a
+ * {@link #DISK_MAX_BYTES} borrando las menos usadas.
+ * Decodificar una miniatura de ~10 KB cuesta una fracción de lo que cuesta
+ * la foto original, así que la lista puede mostrar una por fila.
+ * Cada pedido se decodifica una sola vez a la vez: si load() y prefetch()
+ * lo piden juntos, el segundo espera el resultado del primero en lugar de
+ * escribir el mismo archivo en paralelo.
+ */
+public class ThumbnailCache {
+
+    public static final int  THUMB_SIZE     = 192;                 // px por lado
+    public static final int  THUMB_QUALITY  = 80;
+    public static final long DISK_MAX_BYTES = 20L * 1024 * 1024;   // 20 MB
+
+    private static final String DIR_NAME = "thumbnails";
+    private static final String TAG      = "ThumbnailCache";
+
+    // ── Singleton ────────────────────────────────────────────────────────────
+    private static ThumbnailCache instance;
+
+    /** Recibe en el hilo principal el archivo a mostrar, o null. */
+    public interface FileCallback {
+        void onFile(File file);
+    }
+
+    public static synchronized ThumbnailCache getInstance(Context ctx) {
+        if (instance == null) {
+            instance = new ThumbnailCache(ctx.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final File dir;
+    private final LruCache<Long, Bitmap> memory;
+    private final ExecutorService decoder;
+    private final Executor        mainThread;
+    private final AtomicInteger   writesSinceTrim = new AtomicInteger();
+
+    // Miniaturas que se están obteniendo ahora, por ID de pedido
+    private final Map<Long, CompletableFuture<Bitmap>> inFlight = new ConcurrentHashMap<>();
+
+    private ThumbnailCache(Context context) {
+        dir = new File(context.getFilesDir(), DIR_NAME);
+
+        // 1/16 del heap de la app, medido en bytes reales de cada Bitmap
+        int maxBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 16);
+        memory = new LruCache<Long, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+        };
+
+        AtomicInteger count = new AtomicInteger(1);
+        decoder    = Executors.newFixedThreadPool(2,
+                r -> new Thread(r, "pedidos-thumbs-" + count.getAndIncrement()));
+        mainThread = AppExecutors.getInstance().mainThread();
+    }
+
+    /** Archivo de la miniatura de un pedido (puede no existir todavía). */
+    public File fileFor(long orderId) {
+        return new File(dir, orderId + ".jpg");
+    }
+
+    /** Miniatura ya en memoria, o null. Seguro desde el hilo principal. */
+    public Bitmap getCached(long orderId) {
+        return memory.get(orderId);
+    }
+
+    /**
+     * Muestra la miniatura del pedido en target. Si no está en memoria pone
+     * el placeholder y la carga en segundo plano; si mientras tanto la vista
+     * se recicló para otro pedido, el resultado se descarta.
+     * No toca el disco en el hilo principal: qué archivo existe se decide
+     * en el decodificador.
+     */
+    public void load(Order order, ImageView target) {
+        long id = order.getId();
+        target.setTag(R.id.tag_thumbnail_order, id);
+
+        Bitmap cached = memory.get(id);
+        if (cached != null) {
+            target.setImageBitmap(cached);
+            return;
+        }
+        target.setImageResource(R.drawable.ic_photo_placeholder);
+        if (!hasPhoto(order)) return;
+
+        obtainAsync(order).thenAccept(bitmap -> {
+            if (bitmap == null) return;
+            mainThread.execute(() -> {
+                Object tag = target.getTag(R.id.tag_thumbnail_order);
+                if (tag instanceof Long && (Long) tag == id) target.setImageBitmap(bitmap);
+            });
+        });
+    }
+
+    /** Carga en memoria (y genera si falta) las miniaturas de los pedidos dados. */
+    public void prefetch(List<Order> orders) {
+        for (Order order : orders) {
+            if (memory.get(order.getId()) != null || !hasPhoto(order)) continue;
+            obtainAsync(order);
+        }
+    }
+
+    /** Miniatura del pedido esperando a que esté lista. No usar en el hilo principal. */
+    @VisibleForTesting
+    Bitmap loadBlocking(Order order) {
+        return obtainAsync(order).join();
+    }
+
+    /** Quita la miniatura de la memoria (el archivo en disco se conserva). */
+    @VisibleForTesting
+    void evict(long orderId) {
+        memory.remove(orderId);
+    }
+
+    /**
+     * Archivo para ver la foto en grande: la mejor versión disponible o, si
+     * la cuota ya la borró, la miniatura en disco. Revisa los archivos en el
+     * decodificador y entrega el resultado (null si no hay) en el hilo principal.
+     */
+    public void resolveDisplayFile(Order order, FileCallback callback) {
+        if (!hasPhoto(order)) {
+            callback.onFile(null);
+            return;
+        }
+        decoder.execute(() -> {
+            File file = PhotoCompressor.bestAvailable(order);
+            if (file == null) {
+                File thumb = fileFor(order.getId());
+                if (thumb.exists()) file = thumb;
+            }
+            File result = file;
+            mainThread.execute(() -> callback.onFile(result));
+        });
+    }
+
+    /**
+     * El pedido tuvo foto (solo mira las rutas, sin tocar el disco). Si el
+     * archivo ya no está, obtain() cae a la miniatura guardada: la foto de
+     * un pedido sincronizado puede haberse borrado por la cuota.
+     */
+    private static boolean hasPhoto(Order order) {
+        return order.getPhotoPath() != null || order.getCompressedPhotoPath() != null;
+    }
+
+    /**
+     * Encola obtain() en el decodificador, salvo que ya esté en memoria o
+     * que otra carga del mismo pedido esté en curso: entonces devuelve esa.
+     * El resultado es null si no se pudo generar.
+     */
+    private CompletableFuture<Bitmap> obtainAsync(Order order) {
+        long   id     = order.getId();
+        Bitmap cached = memory.get(id);
+        if (cached != null) return CompletableFuture.completedFuture(cached);
+
+        CompletableFuture<Bitmap> task    = new CompletableFuture<>();
+        CompletableFuture<Bitmap> running = inFlight.putIfAbsent(id, task);
+        if (running != null) return running;
+
+        decoder.execute(() -> {
+            Bitmap bitmap = null;
+            try {
+                bitmap = obtain(order);
+            } finally {
+                // Quien llegue después de esto ya la encuentra en memoria
+                inFlight.remove(id, task);
+                task.complete(bitmap);
+            }
+        });
+        return task;
+    }
+
+    /** Miniatura desde memoria, disco o generándola. Corre en el decodificador. */
+    private Bitmap obtain(Order order) {
+        long   id     = order.getId();
+        Bitmap bitmap = memory.get(id);
+        if (bitmap != null) return bitmap;
+
+        long start = SystemClock.elapsedRealtime();
+        File thumb = fileFor(id);
+        boolean generated = false;
+        if (!thumb.exists()) {
+            // La comprimida decodifica mucho más rápido que el original
+            File source = PhotoCompressor.bestAvailable(order);
+            if (source == null) return null;
+            try {
+                generate(source, thumb);
+                generated = true;
+            } catch (IOException e) {
+                Log.w(TAG, "No se pudo generar la miniatura " + id + ": " + e.getMessage());
+                return null;
+            }
+        } else {
+            thumb.setLastModified(System.currentTimeMillis());   // marca de uso para el LRU de disco
+        }
+
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inPreferredConfig = Bitmap.Config.RGB_565;   // sin alfa: la mitad de memoria
+        bitmap = BitmapFactory.decodeFile(thumb.getAbsolutePath(), opts);
+        if (bitmap == null) return null;
+        memory.put(id, bitmap);
+
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "pedido " + id + (generated ? " (generada)" : "")
+                    + ": " + (SystemClock.elapsedRealtime() - start) + " ms, "
+                    + bitmap.getAllocationByteCount() / 1024 + " KB en memoria");
+        }
+        if (generated && writesSinceTrim.incrementAndGet() >= 20) {
+            writesSinceTrim.set(0);
+            trimDisk();
+        }
+        return bitmap;
+    }
+
+    /** Recorte central cuadrado de THUMB_SIZE, rotado según EXIF, escrito vía temporal. */
+    private void generate(File src, File dst) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(src.getAbsolutePath(), bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("No se pudo leer la imagen: " + src.getName());
+        }
+
+        // Submuestrear mientras el lado corto siga siendo >= THUMB_SIZE
+        int shortest = Math.min(bounds.outWidth, bounds.outHeight);
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = 1;
+        while (shortest / (opts.inSampleSize * 2) >= THUMB_SIZE) {
+            opts.inSampleSize *= 2;
+        }
+        Bitmap decoded = BitmapFactory.decodeFile(src.getAbsolutePath(), opts);
+        if (decoded == null) {
+            throw new IOException("No se pudo decodificar la imagen: " + src.getName());
+        }
+
+        int w = decoded.getWidth(), h = decoded.getHeight();
+        int side = Math.min(w, h);
+        Matrix matrix = new Matrix();
+        float scale = (float) THUMB_SIZE / side;
+        if (scale < 1f) matrix.postScale(scale, scale);
+        matrix.postRotate(exifRotation(src));
+        Bitmap thumb = Bitmap.createBitmap(decoded, (w - side) / 2, (h - side) / 2,
+                side, side, matrix, true);
+        if (thumb != decoded) decoded.recycle();
+
+        if (!dir.exists() && !dir.mkdirs()) {
+            thumb.recycle();
+            throw new IOException("No se pudo crear " + dir);
+        }
+        File tmp = new File(dst.getAbsolutePath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            thumb.compress(Bitmap.CompressFormat.JPEG, THUMB_QUALITY, out);
+        } finally {
+            thumb.recycle();
+        }
+        if (!tmp.renameTo(dst)) {
+            tmp.delete();
+            throw new IOException("No se pudo guardar " + dst.getName());
+        }
+    }
+
+    private static int exifRotation(File file) {
+        try {
+            int orientation = new ExifInterface(file.getAbsolutePath()).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:  return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180: return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270: return 270;
+                default:                                   return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /** Borra las miniaturas usadas hace más tiempo hasta quedar bajo DISK_MAX_BYTES. */
+    private synchronized void trimDisk() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= DISK_MAX_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= DISK_MAX_BYTES) break;
+            long size = f.length();
+            if (f.delete()) total -= size;
+        }
+    }
+}
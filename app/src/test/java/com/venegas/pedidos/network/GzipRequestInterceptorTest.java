@@ -0,0 +1,167 @@
+package com.venegas.pedidos.network;
+
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.sync.OrderUploader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.GzipSource;
+import okio.Okio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Bytes que salen al cable con GzipRequestInterceptor, medidos en
+ * MockWebServer con las llamadas reales de OrderUploader.
+ */
+public class GzipRequestInterceptorTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private MockWebServer server;
+    private OrderUploader uploader;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        RetrofitClient.setBaseUrl(server.url("/").toString());
+        uploader = new OrderUploader(null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RetrofitClient.setBaseUrl(RetrofitClient.BASE_URL);
+        server.shutdown();
+    }
+
+    @Test
+    public void photolessBatchIsCompressedOnTheWire() throws Exception {
+        // Lote de pedidos importados (sin foto)
+        List<Order> orders = orders(50, null);
+        server.enqueue(ok("{\"results\":[]}"));
+
+        uploader.uploadBatch(orders);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertNull(request.getHeader(GzipRequestInterceptor.HEADER));
+
+        long wire = request.getBodySize();
+        String plain = gunzip(request.getBody());
+        assertEquals(wire, Long.parseLong(request.getHeader("Content-Length")));
+        assertTrue(plain.contains(orders.get(49).getIdempotencyKey()));
+        // JSON repetitivo: menos de un tercio del tamaño original
+        assertTrue("gzip " + wire + " B vs " + plain.length() + " B", wire * 3 < plain.length());
+    }
+
+    @Test
+    public void batchWithPhotoIsSentAsIs() throws Exception {
+        List<Order> orders = orders(5, jpeg(20 * 1024));
+        server.enqueue(ok("{\"results\":[]}"));
+
+        uploader.uploadBatch(orders);
+
+        RecordedRequest request = server.takeRequest();
+        assertNull(request.getHeader("Content-Encoding"));
+        assertNull(request.getHeader(GzipRequestInterceptor.HEADER));
+        assertTrue(request.getBodySize() > 5 * 20 * 1024);
+    }
+
+    /**
+     * Configuración por defecto: lote de 1, foto obligatoria y subida
+     * reanudable apagada. La foto va en el cuerpo, así que un pedido creado
+     * en la app nunca se comprime.
+     */
+    @Test
+    public void defaultSingleUploadWithPhotoIsNotCompressed() throws Exception {
+        Order order = orders(1, jpeg(20 * 1024)).get(0);
+        server.enqueue(ok("{\"serverId\":\"S1\"}"));
+
+        assertTrue(uploader.upload(order).success);
+
+        RecordedRequest request = server.takeRequest();
+        assertNull(request.getHeader("Content-Encoding"));
+        assertNull(request.getHeader(GzipRequestInterceptor.HEADER));
+    }
+
+    /** Un pedido suelto sin foto también supera el mínimo y se comprime. */
+    @Test
+    public void singlePhotolessUploadIsCompressed() throws Exception {
+        Order order = orders(1, null).get(0);
+        server.enqueue(ok("{\"serverId\":\"S1\"}"));
+
+        assertTrue(uploader.upload(order).success);
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("gzip", request.getHeader("Content-Encoding"));
+        assertTrue(gunzip(request.getBody()).contains(order.getOrderDetail()));
+    }
+
+    @Test
+    public void smallBodyIsNotCompressed() throws Exception {
+        server.enqueue(ok("{}"));
+
+        ApiService.LoginRequest body = new ApiService.LoginRequest("vendedor@pedidos.ec", "secreto");
+        RetrofitClient.getService().login(body).execute();
+
+        RecordedRequest request = server.takeRequest();
+        assertTrue(request.getBodySize() < 1024);
+        assertNull(request.getHeader("Content-Encoding"));
+        assertNull(request.getHeader(GzipRequestInterceptor.HEADER));
+    }
+
+    // ── Datos de prueba ──────────────────────────────────────────────────────
+
+    private static List<Order> orders(int n, File photo) {
+        List<Order> list = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            Order o = new Order("Cliente " + i, "0999" + i, "Av. Amazonas y Naciones Unidas " + i,
+                    "2 cajas de agua, 1 paquete de arroz, 3 fundas de azúcar (pedido " + i + ")",
+                    Order.PAYMENT_CASH, photo != null ? photo.getPath() : null,
+                    -0.18 + i / 1000.0, -78.47, "2024-05-0" + (1 + i % 9) + " 10:00:00");
+            o.setId(i);
+            list.add(o);
+        }
+        return list;
+    }
+
+    /** Archivo .jpg de bytes aleatorios: no se comprime, como una foto real. */
+    private File jpeg(int size) throws Exception {
+        File file = tmp.newFile("foto.jpg");
+        byte[] data = new byte[size];
+        new Random(7).nextBytes(data);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(data);
+        }
+        return file;
+    }
+
+    private static String gunzip(Buffer body) throws Exception {
+        try (BufferedSource source = Okio.buffer(new GzipSource(body))) {
+            return source.readUtf8();
+        }
+    }
+
+    private static MockResponse ok(String body) {
+        return new MockResponse().setBody(body).setHeader("Content-Type", "application/json");
+    }
+}
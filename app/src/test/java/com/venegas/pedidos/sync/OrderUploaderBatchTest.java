@@ -0,0 +1,181 @@
+package com.venegas.pedidos.sync;
+
+import com.venegas.pedidos.models.Order;
+import com.venegas.pedidos.network.RetrofitClient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.GzipSource;
+import okio.Okio;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Subida por lotes contra MockWebServer: cuántas peticiones cuesta cada
+ * pedido y cómo se reparte la respuesta por ID local.
+ */
+public class OrderUploaderBatchTest {
+
+    private MockWebServer server;
+    private OrderUploader uploader;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        RetrofitClient.setBaseUrl(server.url("/").toString());
+        uploader = new OrderUploader(null);   // el modo por lotes no usa SQLite
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        RetrofitClient.setBaseUrl(RetrofitClient.BASE_URL);
+        server.shutdown();
+    }
+
+    @Test
+    public void batchSendsOneRequestForNOrders() throws Exception {
+        int n = 10;
+        List<Order> orders = orders(n);
+
+        // Un pedido por petición: N peticiones
+        for (Order o : orders) {
+            server.enqueue(json("{\"serverId\":\"S" + o.getId() + "\"}"));
+            assertTrue(uploader.upload(o).success);
+        }
+        assertEquals(n, server.getRequestCount());
+
+        // Lote: una sola petición para los N
+        server.enqueue(json(createdResults(orders)));
+        Map<Long, OrderUploader.Result> results = uploader.uploadBatch(orders);
+        assertEquals(n + 1, server.getRequestCount());
+        assertEquals(n, results.size());
+        for (Order o : orders) {
+            OrderUploader.Result r = results.get(o.getId());
+            assertTrue(r.success);
+            assertEquals("S" + o.getId(), r.serverId);
+        }
+
+        for (int i = 0; i < n; i++) server.takeRequest();
+        RecordedRequest batch = server.takeRequest();
+        assertEquals("/orders/batch", batch.getPath());
+        String body = bodyText(batch);
+        assertTrue(body.contains("name=\"orders\""));
+        for (Order o : orders) assertTrue(body.contains(o.getIdempotencyKey()));
+    }
+
+    @Test
+    public void mapsPerItemResultsByLocalId() {
+        List<Order> orders = orders(5);
+        // Orden distinto al enviado; el 5 no viene en la respuesta
+        server.enqueue(json("{\"results\":["
+                + "{\"localId\":3,\"error\":\"Teléfono inválido\",\"code\":422},"
+                + "{\"localId\":1,\"serverId\":\"S1\",\"status\":\"created\"},"
+                + "{\"localId\":4,\"error\":\"Base de datos ocupada\"},"
+                + "{\"localId\":2,\"serverId\":\"S2\",\"status\":\"duplicate\",\"error\":\"ya existe\"}"
+                + "]}"));
+
+        Map<Long, OrderUploader.Result> results = uploader.uploadBatch(orders);
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(1L).success);
+        assertEquals("S1", results.get(1L).serverId);
+        // Duplicado con serverId: éxito aunque traiga mensaje de error
+        assertTrue(results.get(2L).success);
+        assertEquals("S2", results.get(2L).serverId);
+        // Rechazo con código 4xx: validación, no se reintenta
+        assertFalse(results.get(3L).success);
+        assertEquals(SyncFailure.VALIDATION, results.get(3L).errorType);
+        assertEquals("Teléfono inválido", results.get(3L).errorMessage);
+        // Rechazo sin código: temporal
+        assertEquals(SyncFailure.SERVER, results.get(4L).errorType);
+        // Sin entrada en la respuesta
+        assertFalse(results.get(5L).success);
+        assertEquals(SyncFailure.SERVER, results.get(5L).errorType);
+        assertNull(results.get(5L).serverId);
+    }
+
+    @Test
+    public void httpErrorAppliesToWholeBatch() {
+        List<Order> orders = orders(3);
+        server.enqueue(new MockResponse().setResponseCode(503));
+
+        Map<Long, OrderUploader.Result> results = uploader.uploadBatch(orders);
+
+        for (Order o : orders) {
+            assertFalse(results.get(o.getId()).success);
+            assertEquals(SyncFailure.SERVER, results.get(o.getId()).errorType);
+        }
+    }
+
+    @Test
+    public void nonJsonSuccessBodyBecomesServerError() {
+        List<Order> orders = orders(2);
+        // Con código 200: HTML de un proxy o del arranque en frío (Gson lanza
+        // MalformedJsonException) y texto suelto (JsonSyntaxException)
+        String[] bodies = {"<html><body>Service waking up</body></html>", "Service waking up"};
+        for (String body : bodies) {
+            server.enqueue(new MockResponse().setBody(body).setHeader("Content-Type", "text/html"));
+
+            Map<Long, OrderUploader.Result> results = uploader.uploadBatch(orders);
+
+            for (Order o : orders) {
+                assertFalse(results.get(o.getId()).success);
+                assertEquals(body, SyncFailure.SERVER, results.get(o.getId()).errorType);
+            }
+        }
+    }
+
+    // ── Datos de prueba ──────────────────────────────────────────────────────
+
+    static List<Order> orders(int n) {
+        List<Order> list = new ArrayList<>();
+        for (int i = 1; i <= n; i++) {
+            Order o = new Order("Cliente " + i, "0999" + i, "Calle " + i,
+                    "2 cajas de producto " + i, Order.PAYMENT_CASH, null,
+                    -0.18 + i / 1000.0, -78.47, "2024-05-0" + (1 + i % 9) + " 10:00:00");
+            o.setId(i);
+            list.add(o);
+        }
+        return list;
+    }
+
+    private static String createdResults(List<Order> orders) {
+        StringBuilder sb = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < orders.size(); i++) {
+            long id = orders.get(i).getId();
+            if (i > 0) sb.append(',');
+            sb.append("{\"localId\":").append(id)
+                    .append(",\"serverId\":\"S").append(id).append("\",\"status\":\"created\"}");
+        }
+        return sb.append("]}").toString();
+    }
+
+    /** Cuerpo recibido como texto; el lote sin fotos viaja comprimido. */
+    static String bodyText(RecordedRequest request) throws IOException {
+        Buffer body = request.getBody();
+        if (!"gzip".equals(request.getHeader("Content-Encoding"))) return body.readUtf8();
+        try (BufferedSource source = Okio.buffer(new GzipSource(body))) {
+            return source.readUtf8();
+        }
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setBody(body).setHeader("Content-Type", "application/json");
+    }
+}